@@ -0,0 +1,25 @@
+package gameframework.benchmarks;
+
+import gameframework.benchmarks.World.Block;
+import gameframework.benchmarks.World.Movable;
+import gameframework.motion.IllegalMoveException;
+import gameframework.motion.blocking.BlockerRule;
+import gameframework.motion.blocking.MoveBlockerRulesApplierDefaultImpl;
+
+/**
+ * Rules found by reflection, or by the generated
+ * {@link BenchBlockerRulesDispatcher}: movables cross each other but not the
+ * blocks
+ */
+public class BenchBlockerRules extends MoveBlockerRulesApplierDefaultImpl {
+
+	@BlockerRule
+	public void moveBlockerRule(Movable movable, Movable other) {
+	}
+
+	@BlockerRule
+	public void moveBlockerRule(Movable movable, Block block)
+			throws IllegalMoveException {
+		throw new IllegalMoveException();
+	}
+}
@@ -0,0 +1,24 @@
+package gameframework.benchmarks;
+
+import gameframework.benchmarks.World.Block;
+import gameframework.benchmarks.World.Movable;
+import gameframework.motion.overlapping.OverlapRule;
+import gameframework.motion.overlapping.OverlapRulesApplierDefaultImpl;
+
+/**
+ * Rules found by reflection, or by the generated
+ * {@link BenchOverlapRulesDispatcher}
+ */
+public class BenchOverlapRules extends OverlapRulesApplierDefaultImpl {
+	public int applied = 0;
+
+	@OverlapRule
+	public void overlapRule(Movable movable, Movable other) {
+		applied++;
+	}
+
+	@OverlapRule
+	public void overlapRule(Movable movable, Block block) {
+		applied++;
+	}
+}
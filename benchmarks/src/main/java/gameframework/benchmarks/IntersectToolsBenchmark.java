@@ -0,0 +1,50 @@
+package gameframework.benchmarks;
+
+import gameframework.benchmarks.World.Movable;
+import gameframework.motion.IntersectTools;
+import gameframework.motion.SweptBox;
+
+import java.awt.Shape;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Intersects the next move of every movable of a world with the first block,
+ * with the shapes of {@link IntersectTools#getIntersectShape} or with
+ * {@link SweptBox}
+ */
+public class IntersectToolsBenchmark extends WorldBenchmark {
+
+	private final SweptBox movableBox = new SweptBox();
+	private final SweptBox blockBox = new SweptBox();
+
+	@Setup
+	public void createBoxes() {
+		createWorld();
+		blockBox.set((world.blocks.isEmpty() ? world.movables.get(0)
+				: world.blocks.get(0)).getBoundingBox());
+	}
+
+	@Benchmark
+	public void getIntersectShape(Blackhole blackhole) {
+		for (Movable movable : world.movables) {
+			Shape shape = IntersectTools.getIntersectShape(movable,
+					movable.nextMove);
+			blackhole.consume(shape);
+		}
+	}
+
+	@Benchmark
+	public int sweptBoxIntersects() {
+		int intersections = 0;
+		for (Movable movable : world.movables) {
+			if (movableBox.set(movable, movable.nextMove).intersects(blockBox,
+					false)) {
+				intersections++;
+			}
+		}
+		return intersections;
+	}
+}
@@ -0,0 +1,72 @@
+package gameframework.benchmarks;
+
+import gameframework.benchmarks.World.Block;
+import gameframework.benchmarks.World.Movable;
+import gameframework.motion.GameMovable;
+import gameframework.motion.SpeedVector;
+import gameframework.motion.blocking.BatchMoveBlockerChecker;
+import gameframework.motion.blocking.MoveBlockerCheckerDefaultImpl;
+import gameframework.motion.blocking.MoveBlockerCheckerGridImpl;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Validates the next move of every movable of a world, the movables crossing
+ * each other and being blocked by the blocks
+ */
+public class MoveBlockerCheckerBenchmark extends WorldBenchmark {
+
+	@Param({ "default", "grid" })
+	public String checker;
+
+	private BatchMoveBlockerChecker moveBlockerChecker;
+	private GameMovable[] movables;
+	private SpeedVector[] moves;
+	private boolean[] results;
+
+	@Setup
+	public void createChecker() {
+		createWorld();
+		if (checker.equals("default")) {
+			moveBlockerChecker = new MoveBlockerCheckerDefaultImpl();
+		} else if (checker.equals("grid")) {
+			moveBlockerChecker = new MoveBlockerCheckerGridImpl(World.SPRITE_SIZE);
+		} else {
+			throw new IllegalArgumentException("Unknown checker: " + checker);
+		}
+		moveBlockerChecker.setMoveBlockerRules(new BenchBlockerRules());
+		for (Movable movable : world.movables) {
+			moveBlockerChecker.addMoveBlocker(movable);
+		}
+		for (Block block : world.blocks) {
+			moveBlockerChecker.addMoveBlocker(block);
+		}
+		int count = world.movables.size();
+		movables = world.movables.toArray(new GameMovable[count]);
+		moves = new SpeedVector[count];
+		for (int i = 0; i < count; i++) {
+			moves[i] = world.movables.get(i).nextMove;
+		}
+		results = new boolean[count];
+	}
+
+	@Benchmark
+	public int moveValidation() {
+		int allowed = 0;
+		for (int i = 0; i < movables.length; i++) {
+			if (moveBlockerChecker.moveValidation(movables[i], moves[i])) {
+				allowed++;
+			}
+		}
+		return allowed;
+	}
+
+	@Benchmark
+	public boolean[] moveValidationAll() {
+		moveBlockerChecker.moveValidationAll(movables, moves, movables.length,
+				results);
+		return results;
+	}
+}
@@ -0,0 +1,71 @@
+package gameframework.benchmarks;
+
+import gameframework.game.GameData;
+import gameframework.motion.overlapping.Overlap;
+import gameframework.motion.overlapping.OverlapProcessor;
+import gameframework.motion.overlapping.OverlapProcessorDefaultImpl;
+import gameframework.motion.overlapping.OverlapProcessorGridImpl;
+import gameframework.motion.overlapping.OverlapProcessorParallelImpl;
+import gameframework.motion.overlapping.OverlapProcessorSweepAndPruneImpl;
+import gameframework.motion.overlapping.OverlapRulesApplier;
+import gameframework.motion.overlapping.Overlappable;
+
+import java.util.Vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Finds the overlaps of a world without applying any rule
+ */
+public class OverlapProcessorBenchmark extends WorldBenchmark {
+
+	@Param({ "default", "grid", "sweepAndPrune", "parallel" })
+	public String processor;
+
+	private OverlapProcessor overlapProcessor;
+	private final CountingRules rules = new CountingRules();
+
+	@Setup
+	public void createProcessor() {
+		createWorld();
+		if (processor.equals("default")) {
+			overlapProcessor = new OverlapProcessorDefaultImpl(World.SPRITE_SIZE);
+		} else if (processor.equals("grid")) {
+			overlapProcessor = new OverlapProcessorGridImpl(World.SPRITE_SIZE);
+		} else if (processor.equals("sweepAndPrune")) {
+			overlapProcessor = new OverlapProcessorSweepAndPruneImpl();
+		} else if (processor.equals("parallel")) {
+			overlapProcessor = new OverlapProcessorParallelImpl(World.SPRITE_SIZE);
+		} else {
+			throw new IllegalArgumentException("Unknown processor: " + processor);
+		}
+		overlapProcessor.setOverlapRules(rules);
+		for (Overlappable movable : world.movables) {
+			overlapProcessor.addOverlappable(movable);
+		}
+		for (Overlappable block : world.blocks) {
+			overlapProcessor.addOverlappable(block);
+		}
+	}
+
+	@Benchmark
+	public int processOverlapsAll() {
+		overlapProcessor.processOverlapsAll();
+		return rules.overlaps;
+	}
+
+	static class CountingRules implements OverlapRulesApplier {
+		int overlaps;
+
+		@Override
+		public void setGameData(GameData data) {
+		}
+
+		@Override
+		public void applyOverlapRules(Vector<Overlap> overlaps) {
+			this.overlaps = overlaps.size();
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package gameframework.benchmarks;
+
+import gameframework.benchmarks.World.Movable;
+import gameframework.motion.blocking.MoveBlocker;
+import gameframework.motion.blocking.MoveBlockerRulesApplier;
+import gameframework.motion.overlapping.Overlap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+/**
+ * Applies the rules to the overlaps of a world, and to each movable with the
+ * entities it touches, with the rules found by reflection or by the
+ * dispatchers generated at compile time
+ */
+public class RulesApplierBenchmark extends WorldBenchmark {
+
+	@Param({ "reflective", "generated" })
+	public String dispatch;
+
+	private BenchOverlapRules overlapRules;
+	private MoveBlockerRulesApplier blockerRules;
+	private Vector<Overlap> overlaps;
+	private final List<Movable> blockedMovables = new ArrayList<Movable>();
+	private final List<Vector<MoveBlocker>> blockers = new ArrayList<Vector<MoveBlocker>>();
+
+	@Setup
+	public void createRules() {
+		createWorld();
+		if (dispatch.equals("reflective")) {
+			overlapRules = new BenchOverlapRules();
+			blockerRules = new BenchBlockerRules();
+		} else if (dispatch.equals("generated")) {
+			overlapRules = new BenchOverlapRulesDispatcher();
+			blockerRules = new BenchBlockerRulesDispatcher();
+		} else {
+			throw new IllegalArgumentException("Unknown dispatch: " + dispatch);
+		}
+		overlaps = world.overlaps();
+		for (Overlap overlap : overlaps) {
+			Movable movable = (Movable) overlap.getOverlappable1();
+			int index = blockedMovables.indexOf(movable);
+			if (index < 0) {
+				index = blockedMovables.size();
+				blockedMovables.add(movable);
+				blockers.add(new Vector<MoveBlocker>());
+			}
+			blockers.get(index).add((MoveBlocker) overlap.getOverlappable2());
+		}
+	}
+
+	@Benchmark
+	public int applyOverlapRules() {
+		overlapRules.applied = 0;
+		overlapRules.applyOverlapRules(overlaps);
+		return overlapRules.applied;
+	}
+
+	@Benchmark
+	public int moveValidationProcessing() {
+		int allowed = 0;
+		for (int i = 0; i < blockedMovables.size(); i++) {
+			if (blockerRules.moveValidationProcessing(blockedMovables.get(i),
+					blockers.get(i))) {
+				allowed++;
+			}
+		}
+		return allowed;
+	}
+}
@@ -0,0 +1,121 @@
+package gameframework.benchmarks;
+
+import gameframework.motion.GameMovable;
+import gameframework.motion.SpeedVector;
+import gameframework.motion.blocking.MoveBlocker;
+import gameframework.motion.overlapping.Overlap;
+import gameframework.motion.overlapping.Overlappable;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Vector;
+
+/**
+ * Entities laid out at random on a square map. The side of the map follows
+ * from the number of entities and from the density, the part of the map
+ * covered by their bounding boxes. Movables already made one step, so that
+ * their last move can be swept, and want to make another one.
+ */
+public class World {
+	public static final int SPRITE_SIZE = 16;
+
+	public final List<Movable> movables = new ArrayList<Movable>();
+	public final List<Block> blocks = new ArrayList<Block>();
+	public final int mapSize;
+
+	/**
+	 * @param movableRatio
+	 *            part of the entities that move, between 0 and 1
+	 * @param density
+	 *            part of the map covered by the entities, between 0 and 1
+	 */
+	public World(int entityCount, double movableRatio, double density,
+			long seed) {
+		Random random = new Random(seed);
+		mapSize = (int) Math.ceil(Math.sqrt(entityCount * SPRITE_SIZE
+				* SPRITE_SIZE / density));
+		int movableCount = (int) Math.round(entityCount * movableRatio);
+		for (int i = 0; i < entityCount; i++) {
+			Point position = new Point(random.nextInt(mapSize),
+					random.nextInt(mapSize));
+			if (i < movableCount) {
+				Movable movable = new Movable();
+				movable.setPosition(position);
+				movable.setSpeedVector(randomSpeedVector(random));
+				movable.nextMove = randomSpeedVector(random);
+				movables.add(movable);
+			} else {
+				blocks.add(new Block(position));
+			}
+		}
+	}
+
+	/**
+	 * @return every overlapping pair of entities, movables first
+	 */
+	public Vector<Overlap> overlaps() {
+		Vector<Overlap> overlaps = new Vector<Overlap>();
+		for (int i = 0; i < movables.size(); i++) {
+			Movable movable = movables.get(i);
+			Rectangle box = movable.getBoundingBox();
+			for (int j = i + 1; j < movables.size(); j++) {
+				if (box.intersects(movables.get(j).getBoundingBox())) {
+					overlaps.add(new Overlap(movable, movables.get(j)));
+				}
+			}
+			for (Block block : blocks) {
+				if (box.intersects(block.getBoundingBox())) {
+					overlaps.add(new Overlap(movable, block));
+				}
+			}
+		}
+		return overlaps;
+	}
+
+	private static SpeedVector randomSpeedVector(Random random) {
+		return new SpeedVector(new Point(random.nextInt(3) - 1,
+				random.nextInt(3) - 1), 1 + random.nextInt(4));
+	}
+
+	public static class Movable extends GameMovable implements Overlappable,
+			MoveBlocker {
+		public SpeedVector nextMove;
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return new Rectangle(position.x, position.y, SPRITE_SIZE,
+					SPRITE_SIZE);
+		}
+
+		@Override
+		public void oneStepMoveAddedBehavior() {
+		}
+	}
+
+	public static class Block implements Overlappable, MoveBlocker {
+		private final Point position;
+
+		Block(Point position) {
+			this.position = position;
+		}
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return new Rectangle(position.x, position.y, SPRITE_SIZE,
+					SPRITE_SIZE);
+		}
+
+		@Override
+		public boolean isMovable() {
+			return false;
+		}
+
+		@Override
+		public Point getPosition() {
+			return position;
+		}
+	}
+}
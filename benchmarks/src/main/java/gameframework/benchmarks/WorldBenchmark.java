@@ -0,0 +1,44 @@
+package gameframework.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parameters of the generated world shared by the benchmarks. Every
+ * combination is run by default; select some of them with <code>-p</code>,
+ * for example <code>-p entityCount=1000 -p density=0.05</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class WorldBenchmark {
+
+	@Param({ "100", "1000", "5000" })
+	public int entityCount;
+
+	/** Part of the entities that move */
+	@Param({ "0.1", "0.5" })
+	public double movableRatio;
+
+	/** Part of the map covered by the entities, which sets the map size */
+	@Param({ "0.05", "0.3" })
+	public double density;
+
+	protected World world;
+
+	protected void createWorld() {
+		world = new World(entityCount, movableRatio, density, 42);
+	}
+}
@@ -0,0 +1,211 @@
+package gameframework.base;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform spatial hash storing items by the square cells their bounds cover.
+ * Cells are hashed into a fixed number of buckets, so the grid does not need
+ * to know the size of the universe. Two cells sharing a bucket only produce
+ * extra candidates: callers must still test the bounds of what a query
+ * returns.
+ *
+ * Queries answer the items in the order they were inserted. An item aligned
+ * on the grid and of the size of a cell is stored in a single bucket, so
+ * adding or removing it does not depend on the number of items in the grid.
+ * Several threads may query the grid at the same time, as long as no thread
+ * modifies it meanwhile.
+ */
+public class SpatialHashGrid<T> {
+	private static final int DEFAULT_NB_BUCKETS = 4096;
+
+	protected final int cellSize;
+	protected final int bucketMask;
+	protected final List<Node<T>>[] buckets;
+
+	/* Used to find the node of an item when removing it */
+	protected final Map<T, Node<T>> nodes = new IdentityHashMap<T, Node<T>>();
+
+	/* Used to clear only the buckets that have been filled */
+	protected final List<Integer> usedBuckets = new ArrayList<Integer>();
+
+	private long insertionCount = 0;
+
+	public SpatialHashGrid(int cellSize) {
+		this(cellSize, DEFAULT_NB_BUCKETS);
+	}
+
+	/**
+	 * @param cellSize
+	 *            the side of a cell, usually the sprite size
+	 * @param nbBuckets
+	 *            the number of buckets cells are hashed into, rounded up to
+	 *            a power of two
+	 */
+	@SuppressWarnings("unchecked")
+	public SpatialHashGrid(int cellSize, int nbBuckets) {
+		if (cellSize <= 0) {
+			throw new IllegalArgumentException("cellSize must be positive");
+		}
+		this.cellSize = cellSize;
+		int size = Integer.highestOneBit(Math.max(1, nbBuckets - 1)) << 1;
+		this.bucketMask = size - 1;
+		this.buckets = new List[size];
+	}
+
+	public int getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Adds an item covering the given bounds. An item already in the grid is
+	 * moved to the new bounds. Items with empty bounds are not stored since
+	 * they can't intersect anything.
+	 */
+	public void insert(T item, Rectangle bounds) {
+		remove(item);
+		if (bounds.isEmpty()) {
+			return;
+		}
+		int minX = cell(bounds.x), maxX = cell(bounds.x + bounds.width - 1);
+		int minY = cell(bounds.y), maxY = cell(bounds.y + bounds.height - 1);
+		Node<T> node = new Node<T>(item, new Rectangle(bounds),
+				insertionCount++, minX, minY, maxX, maxY);
+		nodes.put(item, node);
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cy = minY; cy <= maxY; cy++) {
+				int index = bucket(cx, cy);
+				if (buckets[index] == null) {
+					buckets[index] = new ArrayList<Node<T>>();
+					usedBuckets.add(index);
+				}
+				// Two cells of the same item may share a bucket
+				if (minX == maxX && minY == maxY
+						|| !buckets[index].contains(node)) {
+					buckets[index].add(node);
+				}
+			}
+		}
+	}
+
+	public void remove(T item) {
+		Node<T> node = nodes.remove(item);
+		if (node == null) {
+			return;
+		}
+		for (int cx = node.minCellX; cx <= node.maxCellX; cx++) {
+			for (int cy = node.minCellY; cy <= node.maxCellY; cy++) {
+				List<Node<T>> bucket = buckets[bucket(cx, cy)];
+				if (bucket != null) {
+					bucket.remove(node);
+				}
+			}
+		}
+	}
+
+	public boolean contains(T item) {
+		return nodes.containsKey(item);
+	}
+
+	public int size() {
+		return nodes.size();
+	}
+
+	public void clear() {
+		for (Integer index : usedBuckets) {
+			buckets[index] = null;
+		}
+		usedBuckets.clear();
+		nodes.clear();
+	}
+
+	/**
+	 * Adds to <code>result</code>, in insertion order, every item whose
+	 * bounds intersect <code>area</code>.
+	 */
+	public void query(Rectangle area, Collection<? super T> result) {
+		if (area.isEmpty()) {
+			return;
+		}
+		List<Node<T>> found = null;
+		int minX = cell(area.x), maxX = cell(area.x + area.width - 1);
+		int minY = cell(area.y), maxY = cell(area.y + area.height - 1);
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cy = minY; cy <= maxY; cy++) {
+				List<Node<T>> bucket = buckets[bucket(cx, cy)];
+				if (bucket == null) {
+					continue;
+				}
+				for (Node<T> node : bucket) {
+					// A node covering several cells is only collected from
+					// the first of its cells crossed by the query, and
+					// nodes of other cells sharing the bucket are skipped
+					if (cx == Math.max(node.minCellX, minX)
+							&& cy == Math.max(node.minCellY, minY)
+							&& cx <= node.maxCellX && cy <= node.maxCellY
+							&& node.bounds.intersects(area)) {
+						if (found == null) {
+							found = new ArrayList<Node<T>>();
+						}
+						found.add(node);
+					}
+				}
+			}
+		}
+		if (found == null) {
+			return;
+		}
+		if (found.size() > 1) {
+			Collections.sort(found, INSERTION_ORDER);
+		}
+		for (Node<T> node : found) {
+			result.add(node.item);
+		}
+	}
+
+	protected int cell(int coordinate) {
+		// floor division, so that negative coordinates get their own cells
+		int cell = coordinate / cellSize;
+		if (coordinate < 0 && cell * cellSize != coordinate) {
+			cell--;
+		}
+		return cell;
+	}
+
+	protected int bucket(int cellX, int cellY) {
+		int hash = cellX * 73856093 ^ cellY * 19349663;
+		return (hash ^ (hash >>> 16)) & bucketMask;
+	}
+
+	protected static class Node<T> {
+		final T item;
+		final Rectangle bounds;
+		final long order;
+		final int minCellX, minCellY, maxCellX, maxCellY;
+
+		Node(T item, Rectangle bounds, long order, int minCellX,
+				int minCellY, int maxCellX, int maxCellY) {
+			this.item = item;
+			this.bounds = bounds;
+			this.order = order;
+			this.minCellX = minCellX;
+			this.minCellY = minCellY;
+			this.maxCellX = maxCellX;
+			this.maxCellY = maxCellY;
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static final Comparator<Node> INSERTION_ORDER = new Comparator<Node>() {
+		@Override
+		public int compare(Node n1, Node n2) {
+			return n1.order < n2.order ? -1 : (n1.order == n2.order ? 0 : 1);
+		}
+	};
+}
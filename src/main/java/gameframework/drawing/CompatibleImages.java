@@ -0,0 +1,28 @@
+package gameframework.drawing;
+
+import java.awt.GraphicsEnvironment;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+
+/**
+ * Creates images in the format of the screen, so that drawing them on the
+ * canvas needs no conversion
+ */
+final class CompatibleImages {
+
+	private CompatibleImages() {
+	}
+
+	/**
+	 * @return an image with an alpha channel, in the format of the default
+	 *         screen if there is one
+	 */
+	static BufferedImage create(int width, int height) {
+		if (GraphicsEnvironment.isHeadless()) {
+			return new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		}
+		return GraphicsEnvironment.getLocalGraphicsEnvironment()
+				.getDefaultScreenDevice().getDefaultConfiguration()
+				.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+	}
+}
@@ -9,12 +9,14 @@ import java.net.URL;
 public class DrawableImage implements Drawable {
 	protected Image image;
 	protected GameCanvas canvas;
+	protected URL url;
 
 	public DrawableImage(URL imageUrl, GameCanvas gameCanvas) {
 		this.canvas = gameCanvas;
 		if (imageUrl == null) {
 			throw new IllegalArgumentException("Null imageUrl parameter");
 		}
+		this.url = imageUrl;
 		handleImage(imageUrl);
 	}
 	
@@ -49,6 +51,13 @@ public class DrawableImage implements Drawable {
 		return image;
 	}
 
+	/**
+	 * @return where the image was loaded from
+	 */
+	public URL getUrl() {
+		return url;
+	}
+
 	@Override
 	public void draw(Graphics graphics) {
 		canvas.drawImage(graphics, image, 0, 0);
@@ -0,0 +1,50 @@
+package gameframework.drawing;
+
+import java.awt.AWTException;
+import java.awt.BufferCapabilities;
+import java.awt.ImageCapabilities;
+import java.awt.image.BufferStrategy;
+
+/**
+ * Canvas drawn through a {@link BufferStrategy}: frames are drawn directly
+ * into accelerated back buffers, usually {@link java.awt.image.VolatileImage
+ * volatile images}, then shown by flipping the pages or by a single blit done
+ * by the graphics card, instead of being copied from an image in memory.
+ * 
+ * The strategy can only be created once the canvas is displayable, that is
+ * once the frame it was added to is shown.
+ * 
+ * @see GameUniverseViewPortBufferStrategyImpl
+ */
+public class GameCanvasBufferStrategyImpl extends GameCanvasDefaultImpl {
+	private static final int NB_BUFFERS = 2;
+	private static final BufferCapabilities ACCELERATED = new BufferCapabilities(
+			new ImageCapabilities(true), new ImageCapabilities(true),
+			BufferCapabilities.FlipContents.UNDEFINED);
+
+	public GameCanvasBufferStrategyImpl() {
+		// frames are shown by the view port, not by the AWT
+		canvas.setIgnoreRepaint(true);
+	}
+
+	/**
+	 * @return the strategy of the canvas, created with accelerated page
+	 *         flipping if possible, or null while the canvas is not
+	 *         displayable
+	 */
+	public BufferStrategy getBufferStrategy() {
+		if (!canvas.isDisplayable()) {
+			return null;
+		}
+		BufferStrategy strategy = canvas.getBufferStrategy();
+		if (strategy == null) {
+			try {
+				canvas.createBufferStrategy(NB_BUFFERS, ACCELERATED);
+			} catch (AWTException e) {
+				canvas.createBufferStrategy(NB_BUFFERS);
+			}
+			strategy = canvas.getBufferStrategy();
+		}
+		return strategy;
+	}
+}
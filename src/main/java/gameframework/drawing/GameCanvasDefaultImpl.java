@@ -5,9 +5,10 @@ import java.awt.Frame;
 import java.awt.Graphics;
 import java.awt.Image;
 import java.awt.MediaTracker;
+import java.awt.Rectangle;
 import java.awt.event.KeyListener;
 
-public class GameCanvasDefaultImpl implements GameCanvas {
+public class GameCanvasDefaultImpl implements PartialDrawingGameCanvas {
 
 	protected final Canvas canvas;
 
@@ -45,6 +46,32 @@ public class GameCanvasDefaultImpl implements GameCanvas {
 				canvas.getHeight(), canvas);
 	}
 
+	@Override
+	public void drawFullSizeImage(Image image, Rectangle area) {
+		int imageWidth = image.getWidth(canvas);
+		int imageHeight = image.getHeight(canvas);
+		if (imageWidth <= 0 || imageHeight <= 0) {
+			return;
+		}
+		double scaleX = (double) canvas.getWidth() / imageWidth;
+		double scaleY = (double) canvas.getHeight() / imageHeight;
+		Rectangle source = area;
+		if (scaleX != 1 || scaleY != 1) {
+			// one more pixel around, so that rounding leaves no gap
+			source = new Rectangle(area);
+			source.grow(1, 1);
+			source = source.intersection(new Rectangle(imageWidth, imageHeight));
+		}
+		Graphics graphics = canvas.getGraphics();
+		graphics.drawImage(image, (int) Math.floor(source.x * scaleX),
+				(int) Math.floor(source.y * scaleY),
+				(int) Math.ceil((source.x + source.width) * scaleX),
+				(int) Math.ceil((source.y + source.height) * scaleY),
+				source.x, source.y, source.x + source.width, source.y
+						+ source.height, canvas);
+		graphics.dispose();
+	}
+
 	@Override
 	public void setBounds(int x, int y, int width, int height) {
 		canvas.setBounds(x, y, width, height);
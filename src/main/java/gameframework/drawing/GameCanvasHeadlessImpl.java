@@ -0,0 +1,97 @@
+package gameframework.drawing;
+
+import java.awt.Component;
+import java.awt.Frame;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.MediaTracker;
+import java.awt.Rectangle;
+import java.awt.event.KeyListener;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link GameCanvas} with no AWT component, for games running without a
+ * display. Drawing does nothing and buffers are in-memory images, so that
+ * entities and view ports written for a screen still work.
+ */
+public class GameCanvasHeadlessImpl implements PartialDrawingGameCanvas {
+
+	protected int width, height;
+	protected final List<KeyListener> keyListeners = new ArrayList<KeyListener>();
+
+	/* Only used to load images, never displayed */
+	private final Component observer = new Component() {
+		private static final long serialVersionUID = 1L;
+	};
+
+	@Override
+	public Image createBuffer() {
+		return new BufferedImage(Math.max(1, width), Math.max(1, height),
+				BufferedImage.TYPE_INT_RGB);
+	}
+
+	@Override
+	public MediaTracker createMediaTracker() {
+		return new MediaTracker(observer);
+	}
+
+	@Override
+	public void drawImage(Graphics graphics, Image image, int x, int y) {
+	}
+
+	@Override
+	public void drawFullSizeImage(Graphics graphics, Image image) {
+	}
+
+	@Override
+	public void drawFullSizeImage(Image buffer) {
+	}
+
+	@Override
+	public void drawFullSizeImage(Image buffer, Rectangle area) {
+	}
+
+	@Override
+	public void setBounds(int x, int y, int width, int height) {
+		setSize(width, height);
+	}
+
+	@Override
+	public int getWidth() {
+		return width;
+	}
+
+	@Override
+	public int getHeight() {
+		return height;
+	}
+
+	@Override
+	public void setSize(int width, int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	@Override
+	public void addTo(Frame frame) {
+		throw new UnsupportedOperationException(
+				"A headless canvas can't be displayed");
+	}
+
+	@Override
+	public void addKeyListener(KeyListener keyStr) {
+		keyListeners.add(keyStr);
+	}
+
+	@Override
+	public void removeKeyListener(KeyListener keyStr) {
+		keyListeners.remove(keyStr);
+	}
+
+	@Override
+	public KeyListener[] getKeyListeners() {
+		return keyListeners.toArray(new KeyListener[0]);
+	}
+}
@@ -0,0 +1,13 @@
+package gameframework.drawing;
+
+/**
+ * A view port able to paint a snapshot of the universe, as needed by the
+ * pipelined loop of {@link gameframework.game.GameLevelDefaultImpl}.
+ */
+public interface GameUniverseSnapshotViewPort extends GameUniverseViewPort {
+	/**
+	 * Paints a snapshot of the universe instead of the universe itself. May be
+	 * called from another thread than the one moving the entities.
+	 */
+	public void paint(UniverseSnapshot snapshot);
+}
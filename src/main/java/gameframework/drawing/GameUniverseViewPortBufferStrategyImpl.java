@@ -0,0 +1,125 @@
+package gameframework.drawing;
+
+import gameframework.game.GameData;
+import gameframework.game.GameEntity;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.util.Iterator;
+
+/**
+ * View port drawing each frame directly into the back buffer of a
+ * {@link GameCanvasBufferStrategyImpl}, then showing it, without the copy of
+ * a full size image done by {@link GameUniverseViewPortDefaultImpl}. Frames
+ * whose buffers are lost, for example when the display mode changes, are
+ * drawn again.
+ * 
+ * As with the default view port, the entities are scaled when the canvas is
+ * resized after the view port was created. Until the canvas is displayable,
+ * or with another canvas, the view port paints as the default one.
+ */
+public class GameUniverseViewPortBufferStrategyImpl extends
+		GameUniverseViewPortDefaultImpl {
+
+	/* Size of the canvas when the view port was created */
+	private int width, height;
+
+	public GameUniverseViewPortBufferStrategyImpl() {
+	}
+
+	public GameUniverseViewPortBufferStrategyImpl(GameData data) {
+		super(data);
+	}
+
+	@Override
+	public void setGameData(GameData data) {
+		super.setGameData(data);
+		width = getCanvas().getWidth();
+		height = getCanvas().getHeight();
+	}
+
+	@Override
+	public void paint() {
+		BufferStrategy strategy = getBufferStrategy();
+		if (strategy == null) {
+			super.paint();
+		} else {
+			render(strategy, null);
+		}
+	}
+
+	@Override
+	public void paint(UniverseSnapshot snapshot) {
+		BufferStrategy strategy = getBufferStrategy();
+		if (strategy == null) {
+			super.paint(snapshot);
+		} else {
+			render(strategy, snapshot);
+		}
+	}
+
+	/**
+	 * Frames are shown as soon as they are drawn, there is nothing to copy
+	 */
+	@Override
+	public void refresh() {
+		if (getBufferStrategy() == null) {
+			super.refresh();
+		}
+	}
+
+	/**
+	 * @return the strategy of the canvas, or null if there is none yet
+	 */
+	protected BufferStrategy getBufferStrategy() {
+		GameCanvas canvas = getCanvas();
+		if (canvas instanceof GameCanvasBufferStrategyImpl) {
+			return ((GameCanvasBufferStrategyImpl) canvas).getBufferStrategy();
+		}
+		return null;
+	}
+
+	/**
+	 * Draws the frame until its buffers are neither restored nor lost while
+	 * drawing or showing it
+	 * 
+	 * @param snapshot
+	 *            drawn instead of the universe, if not null
+	 */
+	protected void render(BufferStrategy strategy, UniverseSnapshot snapshot) {
+		do {
+			do {
+				Graphics graphics = strategy.getDrawGraphics();
+				try {
+					drawFrame(graphics, snapshot);
+				} finally {
+					graphics.dispose();
+				}
+			} while (strategy.contentsRestored());
+			strategy.show();
+		} while (strategy.contentsLost());
+		// flushes the pipeline of the windowing systems queuing the frames
+		Toolkit.getDefaultToolkit().sync();
+	}
+
+	protected void drawFrame(Graphics graphics, UniverseSnapshot snapshot) {
+		background.draw(graphics);
+		GameCanvas canvas = getCanvas();
+		if (width > 0 && height > 0
+				&& (canvas.getWidth() != width || canvas.getHeight() != height)) {
+			((Graphics2D) graphics).scale((double) canvas.getWidth() / width,
+					(double) canvas.getHeight() / height);
+		}
+		if (snapshot != null) {
+			snapshot.draw(graphics);
+		} else {
+			Iterator<GameEntity> entities = getUniverse()
+					.getGameEntitiesIterator();
+			while (entities.hasNext()) {
+				entities.next().draw(graphics);
+			}
+		}
+	}
+}
@@ -0,0 +1,354 @@
+package gameframework.drawing;
+
+import gameframework.base.ObjectWithBoundedBox;
+import gameframework.base.SpatialHashGrid;
+import gameframework.game.GameData;
+import gameframework.game.GameEntity;
+import gameframework.game.GameUniverse;
+import gameframework.game.GameUniverseDefaultImpl;
+import gameframework.game.GameUniverseListener;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * View port showing only a part of a universe larger than the canvas, seen by
+ * a camera which may follow an entity. The visible part of the universe has
+ * the size of the canvas when the view port was created, and its top left
+ * corner is at the position of the camera.
+ *
+ * Only the entities whose bounding box intersects the visible part are drawn,
+ * in the order of the universe. The entities that don't move are indexed by
+ * the cells of their bounding box when they are added to a
+ * {@link GameUniverseDefaultImpl}, so that a frame does not visit the
+ * entities far from the camera; like the blockers of
+ * {@link gameframework.motion.blocking.MoveBlockerCheckerGridImpl}, they are
+ * expected to keep their bounding box. The movables and the entities without
+ * bounding box are tested, or drawn, at each frame. With another universe,
+ * every entity is tested at each frame.
+ *
+ * The background stays in place while the camera moves, and the whole
+ * visible part is painted at each frame.
+ *
+ * To use it, override
+ * {@link gameframework.game.GameConfiguration#createViewPort(GameData)} and
+ * return <code>new GameUniverseViewPortCameraImpl(data)</code>.
+ */
+public class GameUniverseViewPortCameraImpl extends
+		GameUniverseViewPortDefaultImpl implements GameUniverseListener {
+
+	/** Part of the distance to the followed entity covered at each frame */
+	public static final double DEFAULT_FOLLOW_SMOOTHING = 0.2;
+
+	/* Top left corner of the visible part, and its size */
+	protected double cameraX, cameraY;
+	protected int viewWidth, viewHeight;
+
+	protected ObjectWithBoundedBox target;
+	protected double followSmoothing = DEFAULT_FOLLOW_SMOOTHING;
+	protected Rectangle worldBounds;
+
+	/* Entities of the universe by how they are found, and where they are */
+	private SpatialHashGrid<GameEntity> staticEntities;
+	private final List<GameEntity> movingEntities = new ArrayList<GameEntity>();
+	private final List<GameEntity> unboundedEntities = new ArrayList<GameEntity>();
+	private final Map<GameEntity, Filing> filings = new IdentityHashMap<GameEntity, Filing>();
+	private long insertionCount = 0;
+	private GameUniverseDefaultImpl indexedUniverse;
+
+	/* Reused between frames */
+	private final List<GameEntity> visible = new ArrayList<GameEntity>();
+
+	private final Comparator<GameEntity> universeOrder = new Comparator<GameEntity>() {
+		@Override
+		public int compare(GameEntity e1, GameEntity e2) {
+			long o1 = filings.get(e1).order, o2 = filings.get(e2).order;
+			return o1 < o2 ? -1 : (o1 == o2 ? 0 : 1);
+		}
+	};
+
+	public GameUniverseViewPortCameraImpl() {
+	}
+
+	public GameUniverseViewPortCameraImpl(GameData data) {
+		// not indexed by the constructor of the superclass, before the fields
+		// of this class are initialized
+		setGameData(data);
+	}
+
+	@Override
+	public void setGameData(GameData data) {
+		super.setGameData(data);
+		viewWidth = getCanvas().getWidth();
+		viewHeight = getCanvas().getHeight();
+		synchronized (this) {
+			stopIndexing();
+			staticEntities = new SpatialHashGrid<GameEntity>(data
+					.getConfiguration().getSpriteSize());
+		}
+		GameUniverse universe = getUniverse();
+		if (universe instanceof GameUniverseDefaultImpl) {
+			indexedUniverse = (GameUniverseDefaultImpl) universe;
+			// no entity can be added between the two
+			synchronized (indexedUniverse) {
+				indexedUniverse.addGameUniverseListener(this);
+				Iterator<GameEntity> entities = universe
+						.getGameEntitiesIterator();
+				while (entities.hasNext()) {
+					gameEntityAdded(entities.next());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stops indexing the entities of the universe, and drops the static layer,
+	 * for instance when the level using the view port ends
+	 */
+	public synchronized void dispose() {
+		stopIndexing();
+		if (staticLayer != null) {
+			staticLayer.detach();
+			staticLayer = null;
+		}
+	}
+
+	private void stopIndexing() {
+		if (indexedUniverse != null) {
+			indexedUniverse.removeGameUniverseListener(this);
+			indexedUniverse = null;
+		}
+		if (staticEntities != null) {
+			staticEntities.clear();
+		}
+		movingEntities.clear();
+		unboundedEntities.clear();
+		filings.clear();
+	}
+
+	@Override
+	public synchronized void gameEntityAdded(GameEntity gameEntity) {
+		if (filings.containsKey(gameEntity)) {
+			return;
+		}
+		Filing filing = new Filing(insertionCount++);
+		if (!(gameEntity instanceof ObjectWithBoundedBox)) {
+			filing.list = unboundedEntities;
+		} else if (gameEntity.isMovable()) {
+			filing.list = movingEntities;
+		} else {
+			staticEntities.insert(gameEntity,
+					((ObjectWithBoundedBox) gameEntity).getBoundingBox());
+		}
+		if (filing.list != null) {
+			filing.index = filing.list.size();
+			filing.list.add(gameEntity);
+		}
+		filings.put(gameEntity, filing);
+	}
+
+	/**
+	 * Removes the entity from where it was filed when added, even if it
+	 * stopped being movable since, by moving the last entity of its list in
+	 * its place: the lists are sorted again at each frame anyway
+	 */
+	@Override
+	public synchronized void gameEntityRemoved(GameEntity gameEntity) {
+		Filing filing = filings.remove(gameEntity);
+		if (filing == null) {
+			return;
+		}
+		if (filing.list == null) {
+			staticEntities.remove(gameEntity);
+			return;
+		}
+		GameEntity last = filing.list.remove(filing.list.size() - 1);
+		if (last != gameEntity) {
+			filing.list.set(filing.index, last);
+			filings.get(last).index = filing.index;
+		}
+	}
+
+	/**
+	 * Moves the camera so that the top left corner of the visible part is at
+	 * the given position of the universe
+	 */
+	public void setCameraPosition(double x, double y) {
+		cameraX = x;
+		cameraY = y;
+		clampCamera();
+	}
+
+	/**
+	 * Centers the camera on the entity at each frame, or stops following an
+	 * entity if null
+	 */
+	public void follow(ObjectWithBoundedBox target) {
+		this.target = target;
+	}
+
+	/**
+	 * @param followSmoothing
+	 *            the part of the distance to the followed entity the camera
+	 *            covers at each frame, between 0 excluded and 1 for a camera
+	 *            which does not lag behind
+	 */
+	public void setFollowSmoothing(double followSmoothing) {
+		if (followSmoothing <= 0 || followSmoothing > 1) {
+			throw new IllegalArgumentException(
+					"followSmoothing must be in ]0, 1]");
+		}
+		this.followSmoothing = followSmoothing;
+	}
+
+	/**
+	 * Keeps the camera inside the bounds, so that nothing beyond the edges of
+	 * the universe is shown. Null lets the camera go anywhere.
+	 */
+	public void setWorldBounds(Rectangle worldBounds) {
+		this.worldBounds = worldBounds == null ? null : new Rectangle(
+				worldBounds);
+		clampCamera();
+	}
+
+	/**
+	 * @return the part of the universe drawn on the canvas
+	 */
+	public Rectangle getVisibleArea() {
+		return new Rectangle((int) Math.floor(cameraX),
+				(int) Math.floor(cameraY), viewWidth, viewHeight);
+	}
+
+	/**
+	 * @return the transform from the coordinates of the universe to the ones
+	 *         of the image copied to the canvas
+	 */
+	public AffineTransform getWorldToScreenTransform() {
+		Rectangle area = getVisibleArea();
+		return AffineTransform.getTranslateInstance(-area.x, -area.y);
+	}
+
+	/**
+	 * Moves the camera towards the followed entity, if any
+	 */
+	protected void updateCamera() {
+		if (target == null) {
+			return;
+		}
+		Rectangle bounds = target.getBoundingBox();
+		double goalX = bounds.getCenterX() - viewWidth / 2.0;
+		double goalY = bounds.getCenterY() - viewHeight / 2.0;
+		cameraX += (goalX - cameraX) * followSmoothing;
+		cameraY += (goalY - cameraY) * followSmoothing;
+		// stops the endless approach once closer than a pixel
+		if (Math.abs(goalX - cameraX) < 0.5) {
+			cameraX = goalX;
+		}
+		if (Math.abs(goalY - cameraY) < 0.5) {
+			cameraY = goalY;
+		}
+		clampCamera();
+	}
+
+	private void clampCamera() {
+		if (worldBounds == null) {
+			return;
+		}
+		cameraX = Math.max(worldBounds.x, Math.min(cameraX, worldBounds.x
+				+ worldBounds.width - viewWidth));
+		cameraY = Math.max(worldBounds.y, Math.min(cameraY, worldBounds.y
+				+ worldBounds.height - viewHeight));
+	}
+
+	@Override
+	public void paint() {
+		updateCamera();
+		Rectangle area = getVisibleArea();
+		Graphics graphics = getBufferGraphics();
+		background.draw(graphics);
+		graphics.translate(-area.x, -area.y);
+		if (staticLayer != null) {
+			staticLayer.draw(graphics, area);
+		}
+		for (GameEntity entity : findVisibleEntities(area)) {
+			if (staticLayer == null || !staticLayer.contains(entity)) {
+				entity.draw(graphics);
+			}
+		}
+		graphics.dispose();
+		refresh();
+		visible.clear();
+	}
+
+	/**
+	 * Moves the camera as {@link #paint()} does, and only draws the entities
+	 * which were in the visible part at the tick of the snapshot
+	 */
+	@Override
+	public void paint(UniverseSnapshot snapshot) {
+		updateCamera();
+		Rectangle area = getVisibleArea();
+		Graphics graphics = getBufferGraphics();
+		background.draw(graphics);
+		graphics.translate(-area.x, -area.y);
+		snapshot.draw(graphics, area);
+		graphics.dispose();
+		refresh();
+	}
+
+	/**
+	 * @return the entities to draw, in the order of the universe
+	 */
+	protected List<GameEntity> findVisibleEntities(Rectangle area) {
+		if (indexedUniverse == null) {
+			Iterator<GameEntity> entities = getUniverse()
+					.getGameEntitiesIterator();
+			while (entities.hasNext()) {
+				GameEntity entity = entities.next();
+				if (isVisible(entity, area)) {
+					visible.add(entity);
+				}
+			}
+			return visible;
+		}
+		synchronized (this) {
+			staticEntities.query(area, visible);
+			for (GameEntity entity : movingEntities) {
+				if (isVisible(entity, area)) {
+					visible.add(entity);
+				}
+			}
+			visible.addAll(unboundedEntities);
+			Collections.sort(visible, universeOrder);
+		}
+		return visible;
+	}
+
+	private static boolean isVisible(GameEntity entity, Rectangle area) {
+		return !(entity instanceof ObjectWithBoundedBox)
+				|| ((ObjectWithBoundedBox) entity).getBoundingBox()
+						.intersects(area);
+	}
+
+	/*
+	 * Order of an entity in the universe, and its list with its index there,
+	 * or no list if it is in the grid of the static entities
+	 */
+	private static class Filing {
+		final long order;
+		List<GameEntity> list;
+		int index;
+
+		Filing(long order) {
+			this.order = order;
+		}
+	}
+}
@@ -1,20 +1,49 @@
 package gameframework.drawing;
 
+import gameframework.base.ObjectWithBoundedBox;
 import gameframework.game.GameData;
 import gameframework.game.GameEntity;
 import gameframework.game.GameUniverse;
+import gameframework.game.GameUniverseDefaultImpl;
 
 import java.awt.Graphics;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
-public class GameUniverseViewPortDefaultImpl implements GameUniverseViewPort {
+public class GameUniverseViewPortDefaultImpl implements
+		GameUniverseSnapshotViewPort {
+	/** Above this number of damaged areas, the whole frame is painted */
+	protected static final int MAX_DIRTY_RECTANGLES = 64;
 
 	private Image buffer;
 	protected BackgroundImage background;
 	protected GameData data;
 
+	/**
+	 * If true, only the areas damaged since the last frame are painted
+	 * @see #setDirtyRectangles(boolean)
+	 */
+	protected boolean dirtyRectangles = false;
+
+	/**
+	 * Draws the {@link StaticDrawable} entities, if not null
+	 * @see #setStaticLayer(boolean)
+	 */
+	protected StaticLayer staticLayer;
+
+	/* Bounds of the entities in the last frame, and damaged areas */
+	private Map<GameEntity, Rectangle> drawnBounds = new IdentityHashMap<GameEntity, Rectangle>();
+	private Map<GameEntity, Rectangle> currentBounds = new IdentityHashMap<GameEntity, Rectangle>();
+	private final List<Rectangle> dirty = new ArrayList<Rectangle>();
+	private final List<GameEntity> frameEntities = new ArrayList<GameEntity>();
+	private boolean fullRepaintNeeded = true;
+
 	protected URL backgroundImage(String path) {
 		return this.getClass().getResource(path);
 	}
@@ -32,19 +61,176 @@ public class GameUniverseViewPortDefaultImpl implements GameUniverseViewPort {
 	@Override
 	public void setBackgroundImage(String path) {
 		this.background = new BackgroundImage(path, getCanvas());
+		fullRepaintNeeded = true;
+	}
+
+	/**
+	 * By default, every frame is painted from the background up. If
+	 * <code>dirtyRectangles</code> is true, only the areas where an entity
+	 * appeared, disappeared or moved since the last frame are painted again,
+	 * and only them are copied to the canvas if it is a
+	 * {@link PartialDrawingGameCanvas}. Movables are always painted, as
+	 * their sprite may change without moving. This assumes that entities only
+	 * draw inside their bounding box: the whole frame is painted while an
+	 * entity has no bounding box.
+	 */
+	public void setDirtyRectangles(boolean dirtyRectangles) {
+		this.dirtyRectangles = dirtyRectangles;
+		drawnBounds.clear();
+		fullRepaintNeeded = true;
+	}
+
+	/**
+	 * If true, the {@link StaticDrawable} entities of the universe are drawn
+	 * once into a {@link StaticLayer}, shown below the other entities. Only
+	 * available with a {@link GameUniverseDefaultImpl}, which tells the layer
+	 * when entities are added or removed.
+	 */
+	public void setStaticLayer(boolean enabled) {
+		if (staticLayer != null) {
+			staticLayer.detach();
+			staticLayer = null;
+		}
+		if (enabled) {
+			if (!(getUniverse() instanceof GameUniverseDefaultImpl)) {
+				throw new IllegalStateException(
+						"A static layer needs a GameUniverseDefaultImpl");
+			}
+			staticLayer = new StaticLayer();
+			staticLayer.attach((GameUniverseDefaultImpl) getUniverse());
+		}
+		fullRepaintNeeded = true;
 	}
 
 	@Override
 	public void paint() {
+		if (dirtyRectangles) {
+			paintDirtyRectangles();
+			return;
+		}
 		background.draw(getBufferGraphics());
+		if (staticLayer != null) {
+			Graphics graphics = getBufferGraphics();
+			staticLayer.draw(graphics, getBufferArea());
+			graphics.dispose();
+		}
 		Iterator<GameEntity> gt = getUniverse().getGameEntitiesIterator();
 		for (; gt.hasNext();) {
 			GameEntity tmp = gt.next();
-			tmp.draw(getBufferGraphics());
+			if (staticLayer == null || !staticLayer.contains(tmp)) {
+				tmp.draw(getBufferGraphics());
+			}
 		}
 		refresh();
 	}
 
+	/**
+	 * Paints the background then the entities inside each damaged area, in the
+	 * order of the universe
+	 */
+	protected void paintDirtyRectangles() {
+		boolean fullRepaint = fullRepaintNeeded;
+		Iterator<GameEntity> gt = getUniverse().getGameEntitiesIterator();
+		while (gt.hasNext()) {
+			GameEntity entity = gt.next();
+			if (!(entity instanceof ObjectWithBoundedBox)) {
+				fullRepaint = true;
+				continue;
+			}
+			// entities may return the same rectangle, moved, at each call
+			Rectangle bounds = new Rectangle(
+					((ObjectWithBoundedBox) entity).getBoundingBox());
+			Rectangle previous = drawnBounds.remove(entity);
+			if (previous == null) {
+				addDirty(bounds);
+			} else if (entity.isMovable() || !previous.equals(bounds)) {
+				addDirty(previous);
+				addDirty(bounds);
+			}
+			frameEntities.add(entity);
+			currentBounds.put(entity, bounds);
+		}
+		// entities removed since the last frame
+		for (Rectangle previous : drawnBounds.values()) {
+			addDirty(previous);
+		}
+		drawnBounds.clear();
+		Map<GameEntity, Rectangle> swap = drawnBounds;
+		drawnBounds = currentBounds;
+		currentBounds = swap;
+
+		if (fullRepaint || dirty.size() > MAX_DIRTY_RECTANGLES) {
+			fullRepaintNeeded = false;
+			Graphics graphics = getBufferGraphics();
+			background.draw(graphics);
+			drawEntities(graphics, getBufferArea(), false);
+			graphics.dispose();
+			refresh();
+		} else if (!dirty.isEmpty()) {
+			Graphics graphics = getBufferGraphics();
+			Rectangle union = new Rectangle(dirty.get(0));
+			for (Rectangle area : dirty) {
+				graphics.setClip(area);
+				background.draw(graphics);
+				drawEntities(graphics, area, true);
+				union.add(area);
+			}
+			graphics.dispose();
+			GameCanvas canvas = getCanvas();
+			if (canvas instanceof PartialDrawingGameCanvas) {
+				((PartialDrawingGameCanvas) canvas).drawFullSizeImage(buffer,
+						union);
+			} else {
+				refresh();
+			}
+		}
+		dirty.clear();
+		frameEntities.clear();
+	}
+
+	/*
+	 * Draws the static layer then the other entities of the frame, only the
+	 * ones intersecting the area if asked
+	 */
+	private void drawEntities(Graphics graphics, Rectangle area,
+			boolean intersectingOnly) {
+		if (staticLayer != null) {
+			staticLayer.draw(graphics, area);
+		}
+		for (GameEntity entity : frameEntities) {
+			if ((!intersectingOnly || drawnBounds.get(entity).intersects(area))
+					&& (staticLayer == null || !staticLayer.contains(entity))) {
+				entity.draw(graphics);
+			}
+		}
+	}
+
+	/*
+	 * Merges the area with a damaged area it overlaps, if any
+	 */
+	private void addDirty(Rectangle area) {
+		if (area.isEmpty()) {
+			return;
+		}
+		for (Rectangle other : dirty) {
+			if (other.intersects(area)) {
+				other.add(area);
+				return;
+			}
+		}
+		dirty.add(new Rectangle(area));
+	}
+
+	@Override
+	public void paint(UniverseSnapshot snapshot) {
+		Graphics graphics = getBufferGraphics();
+		background.draw(graphics);
+		snapshot.draw(graphics);
+		refresh();
+		// the entities of the snapshot are not tracked
+		fullRepaintNeeded = true;
+	}
+
 	protected GameUniverse getUniverse() {
 		return data.getUniverse();
 	}
@@ -58,12 +244,20 @@ public class GameUniverseViewPortDefaultImpl implements GameUniverseViewPort {
 		this.data = data;
 		buffer = getCanvas().createBuffer();
 		background = new BackgroundImage(backgroundImage(), getCanvas());
+		fullRepaintNeeded = true;
+		if (staticLayer != null) {
+			setStaticLayer(true);
+		}
 	}
 
 	protected Graphics getBufferGraphics() {
 		return buffer.getGraphics();
 	}
 
+	protected Rectangle getBufferArea() {
+		return new Rectangle(buffer.getWidth(null), buffer.getHeight(null));
+	}
+
 	@Override
 	public void refresh() {
 		getCanvas().drawFullSizeImage(buffer);
@@ -0,0 +1,41 @@
+package gameframework.drawing;
+
+import gameframework.game.GameData;
+
+/**
+ * {@link GameUniverseViewPort} painting nothing, for games running without a
+ * display
+ */
+public class GameUniverseViewPortHeadlessImpl implements
+		GameUniverseSnapshotViewPort {
+
+	protected GameData data;
+
+	public GameUniverseViewPortHeadlessImpl() {
+	}
+
+	public GameUniverseViewPortHeadlessImpl(GameData data) {
+		setGameData(data);
+	}
+
+	@Override
+	public void paint() {
+	}
+
+	@Override
+	public void paint(UniverseSnapshot snapshot) {
+	}
+
+	@Override
+	public void refresh() {
+	}
+
+	@Override
+	public void setGameData(GameData data) {
+		this.data = data;
+	}
+
+	@Override
+	public void setBackgroundImage(String path) {
+	}
+}
@@ -0,0 +1,17 @@
+package gameframework.drawing;
+
+import java.awt.Image;
+import java.awt.Rectangle;
+
+/**
+ * A GameCanvas which can also draw only an area of an image. View ports
+ * refresh the whole image on the other canvases.
+ */
+public interface PartialDrawingGameCanvas extends GameCanvas {
+
+	/**
+	 * Draws only an area of the image, given in the coordinates of the image,
+	 * scaled as by {@link #drawFullSizeImage(Image)}
+	 */
+	void drawFullSizeImage(Image buffer, Rectangle area);
+}
@@ -0,0 +1,15 @@
+package gameframework.drawing;
+
+/**
+ * An entity able to give a copy of what it draws, so that it can be painted
+ * by another thread while it keeps moving.
+ * 
+ * @see UniverseSnapshot
+ */
+public interface Snapshotable {
+	/**
+	 * @return a drawable of the current state, which doesn't change when the
+	 *         entity moves or changes its sprite afterwards
+	 */
+	public Drawable snapshot();
+}
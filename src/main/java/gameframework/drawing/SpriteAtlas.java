@@ -0,0 +1,86 @@
+package gameframework.drawing;
+
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The sprites of a sheet, cut and scaled once to their rendering size into
+ * images in the format of the screen, so that drawing a sprite is a copy
+ * without scaling nor conversion. An atlas is shared by the sprite managers
+ * using the same sheet with the same sizes, until {@link #clearCache()}.
+ */
+public class SpriteAtlas {
+	/* Atlases by sheet and sizes */
+	private static final Map<String, SpriteAtlas> atlases = new HashMap<String, SpriteAtlas>();
+
+	/* Indexed by row then column */
+	private final BufferedImage[][] sprites;
+
+	/**
+	 * @return the atlas of the sheet, created the first time it is asked for
+	 */
+	public static synchronized SpriteAtlas get(DrawableImage sheet,
+			int spriteSize, int renderingSize) {
+		if (sheet.getUrl() == null) {
+			return new SpriteAtlas(sheet, spriteSize, renderingSize);
+		}
+		String key = sheet.getUrl() + "#" + spriteSize + "@" + renderingSize;
+		SpriteAtlas atlas = atlases.get(key);
+		if (atlas == null) {
+			atlas = new SpriteAtlas(sheet, spriteSize, renderingSize);
+			atlases.put(key, atlas);
+		}
+		return atlas;
+	}
+
+	/**
+	 * Forgets the atlases, for instance when their sheets are no longer used
+	 */
+	public static synchronized void clearCache() {
+		atlases.clear();
+	}
+
+	protected SpriteAtlas(DrawableImage sheet, int spriteSize,
+			int renderingSize) {
+		if (spriteSize <= 0 || renderingSize <= 0) {
+			throw new IllegalArgumentException("Sizes must be positive");
+		}
+		int columns = sheet.getWidth() / spriteSize;
+		int rows = sheet.getHeight() / spriteSize;
+		Image image = sheet.getImage();
+		sprites = new BufferedImage[rows][columns];
+		for (int row = 0; row < rows; row++) {
+			for (int column = 0; column < columns; column++) {
+				BufferedImage sprite = CompatibleImages.create(renderingSize,
+						renderingSize);
+				Graphics2D graphics = sprite.createGraphics();
+				int sx = column * spriteSize;
+				int sy = row * spriteSize;
+				graphics.drawImage(image, 0, 0, renderingSize, renderingSize,
+						sx, sy, sx + spriteSize, sy + spriteSize, null);
+				graphics.dispose();
+				sprites[row][column] = sprite;
+			}
+		}
+	}
+
+	/**
+	 * @return true if the sheet has a sprite at this place
+	 */
+	public boolean contains(int column, int row) {
+		return row >= 0 && row < sprites.length && column >= 0
+				&& column < sprites[row].length;
+	}
+
+	public BufferedImage getSprite(int column, int row) {
+		return sprites[row][column];
+	}
+
+	public void draw(Graphics g, int x, int y, int column, int row) {
+		g.drawImage(sprites[row][column], x, y, null);
+	}
+}
@@ -19,6 +19,7 @@ public class SpriteManagerDefaultImpl implements SpriteManager {
 	private final int maxSpriteNumber;
 	private int currentRow;
 	private final int renderingSize;
+	private SpriteAtlas atlas;
 
 	public SpriteManagerDefaultImpl(DrawableImage image, int renderingSize,
 			int maxSpriteNumber) {
@@ -28,6 +29,17 @@ public class SpriteManagerDefaultImpl implements SpriteManager {
 		this.spriteSize = image.getWidth() / maxSpriteNumber;
 	}
 
+	/**
+	 * By default, each sprite is cut from the sheet and scaled when it is
+	 * drawn. If <code>prescaled</code> is true, the sprites are drawn from a
+	 * {@link SpriteAtlas} of the sheet, shared with the other managers of the
+	 * same sheet and sizes, and created by the first of them.
+	 */
+	public void setPrescaled(boolean prescaled) {
+		atlas = prescaled ? SpriteAtlas.get(image, spriteSize, renderingSize)
+				: null;
+	}
+
 	@Override
 	public void setTypes(String... types) {
 		int i = 0;
@@ -40,15 +52,42 @@ public class SpriteManagerDefaultImpl implements SpriteManager {
 
 	@Override
 	public void draw(Graphics g, Point position) {
+		drawSprite(g, (int) position.getX(), (int) position.getY(),
+				spriteNumber, currentRow);
+	}
+
+	/**
+	 * @return a drawable of the current sprite at the given position, which
+	 *         is not affected by later changes of type or increment
+	 */
+	public Drawable snapshot(Point position) {
+		final int x = (int) position.getX();
+		final int y = (int) position.getY();
+		final int column = spriteNumber;
+		final int row = currentRow;
+		return new Drawable() {
+
+			@Override
+			public void draw(Graphics g) {
+				drawSprite(g, x, y, column, row);
+			}
+		};
+	}
+
+	private void drawSprite(Graphics g, int x, int y, int column, int row) {
+		if (atlas != null && atlas.contains(column, row)) {
+			atlas.draw(g, x, y, column, row);
+			return;
+		}
 		// Destination image coordinates
-		int dx1 = (int) position.getX();
-		int dy1 = (int) position.getY();
+		int dx1 = x;
+		int dy1 = y;
 		int dx2 = dx1 + renderingSize;
 		int dy2 = dy1 + renderingSize;
 
 		// Source image coordinates
-		int sx1 = spriteNumber * spriteSize;
-		int sy1 = currentRow * spriteSize;
+		int sx1 = column * spriteSize;
+		int sy1 = row * spriteSize;
 		int sx2 = sx1 + spriteSize;
 		int sy2 = sy1 + spriteSize;
 		g.drawImage(image.getImage(), dx1, dy1, dx2, dy2, sx1, sy1, sx2, sy2,
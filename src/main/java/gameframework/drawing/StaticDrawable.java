@@ -0,0 +1,11 @@
+package gameframework.drawing;
+
+import gameframework.base.ObjectWithBoundedBox;
+
+/**
+ * An entity which does not move and always draws the same thing inside its
+ * bounding box, such as a wall or a pellet, so that it can be drawn once into
+ * a {@link StaticLayer} instead of at each frame.
+ */
+public interface StaticDrawable extends ObjectWithBoundedBox {
+}
@@ -0,0 +1,242 @@
+package gameframework.drawing;
+
+import gameframework.base.SpatialHashGrid;
+import gameframework.game.GameEntity;
+import gameframework.game.GameUniverseDefaultImpl;
+import gameframework.game.GameUniverseListener;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link StaticDrawable} entities of a universe drawn once into square
+ * images, the chunks, which are then drawn at each frame instead of the
+ * entities. Adding or removing an entity only draws again the chunks under
+ * its bounding box, the next time they are shown.
+ *
+ * The layer is drawn below the other entities, whatever the order of the
+ * universe. An entity whose drawing changes must call {@link #invalidate} with
+ * its bounding box.
+ */
+public class StaticLayer implements GameUniverseListener {
+	public static final int DEFAULT_CHUNK_SIZE = 256;
+
+	protected final int chunkSize;
+
+	/* The entities of the layer by chunk, and their bounds when added */
+	private final SpatialHashGrid<GameEntity> entities;
+	private final Map<GameEntity, Rectangle> bounds = new IdentityHashMap<GameEntity, Rectangle>();
+
+	/* Chunks holding entities, by packed coordinates */
+	private final Map<Long, Chunk> chunks = new HashMap<Long, Chunk>();
+
+	private GameUniverseDefaultImpl universe;
+
+	/* Reused when drawing a chunk */
+	private final List<GameEntity> chunkEntities = new ArrayList<GameEntity>();
+
+	public StaticLayer() {
+		this(DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * @param chunkSize
+	 *            the side of the images the entities are drawn into
+	 */
+	public StaticLayer(int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive");
+		}
+		this.chunkSize = chunkSize;
+		entities = new SpatialHashGrid<GameEntity>(chunkSize);
+	}
+
+	/**
+	 * Adds the entities of the universe to the layer, then follows the
+	 * entities added to it or removed from it
+	 */
+	public void attach(GameUniverseDefaultImpl universe) {
+		detach();
+		// no entity can be added between the two
+		synchronized (universe) {
+			universe.addGameUniverseListener(this);
+			Iterator<GameEntity> it = universe.getGameEntitiesIterator();
+			while (it.hasNext()) {
+				gameEntityAdded(it.next());
+			}
+		}
+		synchronized (this) {
+			this.universe = universe;
+		}
+	}
+
+	/**
+	 * Stops following the universe and forgets its entities
+	 */
+	public synchronized void detach() {
+		if (universe != null) {
+			universe.removeGameUniverseListener(this);
+			universe = null;
+		}
+		entities.clear();
+		bounds.clear();
+		chunks.clear();
+	}
+
+	/**
+	 * @return true if the entity is drawn by the layer
+	 */
+	public synchronized boolean contains(GameEntity gameEntity) {
+		return bounds.containsKey(gameEntity);
+	}
+
+	@Override
+	public synchronized void gameEntityAdded(GameEntity gameEntity) {
+		if (!(gameEntity instanceof StaticDrawable) || gameEntity.isMovable()
+				|| bounds.containsKey(gameEntity)) {
+			return;
+		}
+		Rectangle box = new Rectangle(
+				((StaticDrawable) gameEntity).getBoundingBox());
+		bounds.put(gameEntity, box);
+		entities.insert(gameEntity, box);
+		forEachChunk(box, true);
+	}
+
+	@Override
+	public synchronized void gameEntityRemoved(GameEntity gameEntity) {
+		Rectangle box = bounds.remove(gameEntity);
+		if (box != null) {
+			entities.remove(gameEntity);
+			forEachChunk(box, false);
+		}
+	}
+
+	/**
+	 * Draws the entities under the area again before the chunks are shown
+	 */
+	public synchronized void invalidate(Rectangle area) {
+		forEachChunk(area, false);
+	}
+
+	/**
+	 * Draws the chunks covering the area, in the coordinates of the universe
+	 */
+	public synchronized void draw(Graphics graphics, Rectangle area) {
+		if (area.isEmpty() || chunks.isEmpty()) {
+			return;
+		}
+		int minX = chunk(area.x), maxX = chunk(area.x + area.width - 1);
+		int minY = chunk(area.y), maxY = chunk(area.y + area.height - 1);
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cy = minY; cy <= maxY; cy++) {
+				Long key = key(cx, cy);
+				Chunk chunk = chunks.get(key);
+				if (chunk == null) {
+					continue;
+				}
+				if (!chunk.valid && !render(chunk, cx, cy)) {
+					chunks.remove(key);
+					continue;
+				}
+				graphics.drawImage(chunk.image, cx * chunkSize, cy
+						* chunkSize, null);
+			}
+		}
+	}
+
+	/**
+	 * @return the number of chunks currently holding entities
+	 */
+	public synchronized int getChunkCount() {
+		return chunks.size();
+	}
+
+	/**
+	 * @return an image with an alpha channel, in the format of the screen
+	 *         when there is one so that drawing it needs no conversion
+	 */
+	protected BufferedImage createChunkImage() {
+		return CompatibleImages.create(chunkSize, chunkSize);
+	}
+
+	/*
+	 * Invalidates the chunks covered by the area, creating them if asked
+	 */
+	private void forEachChunk(Rectangle area, boolean create) {
+		if (area.isEmpty()) {
+			return;
+		}
+		int minX = chunk(area.x), maxX = chunk(area.x + area.width - 1);
+		int minY = chunk(area.y), maxY = chunk(area.y + area.height - 1);
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cy = minY; cy <= maxY; cy++) {
+				Long key = key(cx, cy);
+				Chunk chunk = chunks.get(key);
+				if (chunk == null && create) {
+					chunk = new Chunk();
+					chunks.put(key, chunk);
+				}
+				if (chunk != null) {
+					chunk.valid = false;
+				}
+			}
+		}
+	}
+
+	/*
+	 * Draws the entities of the chunk in the order they were added, returns
+	 * false if there is none left
+	 */
+	private boolean render(Chunk chunk, int cx, int cy) {
+		Rectangle area = new Rectangle(cx * chunkSize, cy * chunkSize,
+				chunkSize, chunkSize);
+		entities.query(area, chunkEntities);
+		if (chunkEntities.isEmpty()) {
+			return false;
+		}
+		if (chunk.image == null) {
+			chunk.image = createChunkImage();
+		}
+		Graphics2D graphics = chunk.image.createGraphics();
+		graphics.setComposite(AlphaComposite.Clear);
+		graphics.fillRect(0, 0, chunkSize, chunkSize);
+		graphics.setComposite(AlphaComposite.SrcOver);
+		graphics.translate(-area.x, -area.y);
+		graphics.setClip(area);
+		for (GameEntity entity : chunkEntities) {
+			entity.draw(graphics);
+		}
+		graphics.dispose();
+		chunkEntities.clear();
+		chunk.valid = true;
+		return true;
+	}
+
+	private int chunk(int coordinate) {
+		// floor division, so that negative coordinates get their own chunks
+		int chunk = coordinate / chunkSize;
+		if (coordinate < 0 && chunk * chunkSize != coordinate) {
+			chunk--;
+		}
+		return chunk;
+	}
+
+	private static Long key(int cx, int cy) {
+		return (long) cy << 32 | cx & 0xffffffffL;
+	}
+
+	private static class Chunk {
+		BufferedImage image;
+		boolean valid = false;
+	}
+}
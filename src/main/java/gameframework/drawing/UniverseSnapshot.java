@@ -0,0 +1,110 @@
+package gameframework.drawing;
+
+import gameframework.base.ObjectWithBoundedBox;
+import gameframework.game.GameEntity;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * What the entities of the universe draw at a given tick, painted without
+ * reading the entities. Entities that are {@link Snapshotable} are copied, for
+ * instance with {@link SpriteManagerDefaultImpl#snapshot(java.awt.Point)}. The
+ * other entities with a bounding box are drawn into an image of their box when
+ * the snapshot is taken, which costs an image per entity and per snapshot, and
+ * clips what they draw outside their box. The other entities without bounding
+ * box are left out of the snapshot.
+ */
+public final class UniverseSnapshot implements Drawable {
+	private final Drawable[] drawables;
+	/* Bounding boxes of the entities at the tick, null when they have none */
+	private final Rectangle[] boxes;
+	private final long tick;
+
+	private UniverseSnapshot(Drawable[] drawables, Rectangle[] boxes, long tick) {
+		this.drawables = drawables;
+		this.boxes = boxes;
+		this.tick = tick;
+	}
+
+	/**
+	 * Takes the snapshot of the entities in the order of the iterator, on the
+	 * thread moving them
+	 */
+	public static UniverseSnapshot take(Iterator<GameEntity> entities,
+			long tick) {
+		List<Drawable> drawables = new ArrayList<Drawable>();
+		List<Rectangle> boxes = new ArrayList<Rectangle>();
+		while (entities.hasNext()) {
+			GameEntity entity = entities.next();
+			Rectangle box = null;
+			if (entity instanceof ObjectWithBoundedBox) {
+				box = ((ObjectWithBoundedBox) entity).getBoundingBox();
+			}
+			if (box != null) {
+				box = new Rectangle(box);
+			}
+			if (entity instanceof Snapshotable) {
+				drawables.add(((Snapshotable) entity).snapshot());
+			} else if (box != null && !box.isEmpty()) {
+				drawables.add(new EntityImage(entity, box));
+			} else {
+				continue;
+			}
+			boxes.add(box);
+		}
+		return new UniverseSnapshot(drawables.toArray(new Drawable[0]),
+				boxes.toArray(new Rectangle[0]), tick);
+	}
+
+	public long getTick() {
+		return tick;
+	}
+
+	@Override
+	public void draw(Graphics g) {
+		for (Drawable drawable : drawables) {
+			drawable.draw(g);
+		}
+	}
+
+	/**
+	 * Draws only the entities whose bounding box at the tick intersects the
+	 * area, and the entities without bounding box
+	 */
+	public void draw(Graphics g, Rectangle area) {
+		for (int i = 0; i < drawables.length; i++) {
+			if (boxes[i] == null || boxes[i].intersects(area)) {
+				drawables[i].draw(g);
+			}
+		}
+	}
+
+	/**
+	 * What the entity drew in its bounding box when the snapshot was taken
+	 */
+	private static class EntityImage implements Drawable {
+		private final BufferedImage image;
+		private final int x, y;
+
+		EntityImage(GameEntity entity, Rectangle box) {
+			image = new BufferedImage(box.width, box.height,
+					BufferedImage.TYPE_INT_ARGB);
+			x = box.x;
+			y = box.y;
+			Graphics g = image.createGraphics();
+			g.translate(-x, -y);
+			entity.draw(g);
+			g.dispose();
+		}
+
+		@Override
+		public void draw(Graphics g) {
+			g.drawImage(image, x, y, null);
+		}
+	}
+}
@@ -1,7 +1,13 @@
 package gameframework.game;
 
 import gameframework.drawing.GameCanvas;
+import gameframework.drawing.GameCanvasBufferStrategyImpl;
 import gameframework.drawing.GameCanvasDefaultImpl;
+import gameframework.drawing.GameCanvasHeadlessImpl;
+import gameframework.drawing.GameUniverseViewPort;
+import gameframework.drawing.GameUniverseViewPortBufferStrategyImpl;
+import gameframework.drawing.GameUniverseViewPortDefaultImpl;
+import gameframework.drawing.GameUniverseViewPortHeadlessImpl;
 import gameframework.motion.blocking.MoveBlockerChecker;
 import gameframework.motion.blocking.MoveBlockerCheckerDefaultImpl;
 import gameframework.motion.blocking.MoveBlockerRulesApplier;
@@ -17,6 +23,8 @@ public class GameConfiguration {
 	protected final int nbColumns;
 	protected final int spriteSize;
 	protected final int nbLives;
+	protected boolean headless = false;
+	protected boolean acceleratedRendering = false;
 
 	private static final int DEFAULT_NBROWS = 31;
 	private static final int DEFAULT_NBCOL = 28;
@@ -76,10 +84,63 @@ public class GameConfiguration {
 		return nbLives;
 	}
 
+	/**
+	 * @return true if the game runs without a display
+	 * @see #setHeadless(boolean)
+	 */
+	public boolean isHeadless() {
+		return headless;
+	}
+
+	/**
+	 * In headless mode, the canvas and the view ports don't draw anything and
+	 * levels run their ticks one after the other, without painting nor
+	 * waiting. To be called before creating the {@link GameData}.
+	 */
+	public void setHeadless(boolean headless) {
+		this.headless = headless;
+	}
+
+	/**
+	 * @return true if frames are drawn through a buffer strategy
+	 * @see #setAcceleratedRendering(boolean)
+	 */
+	public boolean isAcceleratedRendering() {
+		return acceleratedRendering;
+	}
+
+	/**
+	 * Draws the frames directly into accelerated buffers which are flipped,
+	 * see {@link GameCanvasBufferStrategyImpl}. Ignored in headless mode. To
+	 * be called before creating the {@link GameData}.
+	 */
+	public void setAcceleratedRendering(boolean acceleratedRendering) {
+		this.acceleratedRendering = acceleratedRendering;
+	}
+
 	public GameCanvas createCanvas() {
+		if (headless) {
+			return new GameCanvasHeadlessImpl();
+		}
+		if (acceleratedRendering) {
+			return new GameCanvasBufferStrategyImpl();
+		}
 		return new GameCanvasDefaultImpl();
 	}
 
+	/**
+	 * To be called by the levels to create their board
+	 */
+	public GameUniverseViewPort createViewPort(GameData data) {
+		if (headless) {
+			return new GameUniverseViewPortHeadlessImpl(data);
+		}
+		if (acceleratedRendering) {
+			return new GameUniverseViewPortBufferStrategyImpl(data);
+		}
+		return new GameUniverseViewPortDefaultImpl(data);
+	}
+
 	public MoveBlockerRulesApplier createMoveBlockerRulesApplier() {
 		return new MoveBlockerRulesApplierDefaultImpl();
 	}
@@ -93,7 +154,7 @@ public class GameConfiguration {
 	}
 
 	public OverlapProcessor createOverlapProcessor() {
-		return new OverlapProcessorDefaultImpl();
+		return new OverlapProcessorDefaultImpl(getSpriteSize());
 	}
 
 	public GameUniverse createUniverse() {
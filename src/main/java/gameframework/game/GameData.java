@@ -2,9 +2,15 @@ package gameframework.game;
 
 import gameframework.base.ObservableValue;
 import gameframework.drawing.GameCanvas;
+import gameframework.metrics.GameMetricsListener;
+import gameframework.metrics.GameMetricsListenerComposite;
+import gameframework.metrics.GameMetricsTracer;
 import gameframework.motion.blocking.MoveBlockerChecker;
+import gameframework.motion.blocking.MoveBlockerCheckerDefaultImpl;
 import gameframework.motion.blocking.MoveBlockerRulesApplier;
 import gameframework.motion.overlapping.OverlapProcessor;
+import gameframework.motion.overlapping.OverlapProcessorDefaultImpl;
+import gameframework.motion.overlapping.OverlapProcessorSweepAndPruneImpl;
 import gameframework.motion.overlapping.OverlapRulesApplier;
 
 import java.util.ArrayList;
@@ -23,6 +29,8 @@ public class GameData {
 	protected final OverlapRulesApplier overlapRulesApplier;
 	protected final OverlapProcessor overlapProcessor;
 	protected final GameUniverse universe;
+	protected volatile GameMetricsListener metricsListener;
+	protected volatile GameMetricsTracer metricsTracer;
 
 	public GameData(GameConfiguration configuration) {
 		this.configuration = configuration;
@@ -33,8 +41,6 @@ public class GameData {
 		endOfGame = new ObservableValue<Boolean>(false);
 		levels = new ArrayList<GameLevel>();
 
-		universe = configuration.createUniverse(this);
-
 		moveBlockerRulesApplier = configuration.createMoveBlockerRulesApplier();
 		moveBlockerRulesApplier.setGameData(this);
 		moveBlockerChecker = configuration.createMoveBlockerChecker();
@@ -45,7 +51,8 @@ public class GameData {
 		overlapProcessor = configuration.createOverlapProcessor();
 		overlapProcessor.setOverlapRules(overlapRulesApplier);
 
-
+		// last, so that the universe can use the processor and the checker
+		universe = configuration.createUniverse(this);
 	}
 
 	public GameConfiguration getConfiguration() {
@@ -106,4 +113,76 @@ public class GameData {
 	public GameUniverse getUniverse() {
 		return universe;
 	}
+
+	/**
+	 * @return the listener told about the durations of the phases of the game
+	 *         loop and about the counters, or null if the game is not measured
+	 */
+	public GameMetricsListener getMetricsListener() {
+		return metricsListener;
+	}
+
+	/**
+	 * Starts measuring the game, or stops it if the listener is null. Nothing
+	 * is measured by default.
+	 * 
+	 * @see gameframework.metrics.GameMetricsRecorder
+	 */
+	public void setMetricsListener(GameMetricsListener metricsListener) {
+		this.metricsListener = metricsListener;
+		if (moveBlockerChecker instanceof MoveBlockerCheckerDefaultImpl) {
+			((MoveBlockerCheckerDefaultImpl) moveBlockerChecker)
+					.setMetricsListener(metricsListener);
+		}
+	}
+
+	/**
+	 * Starts measuring the game with the listener as well as with the current
+	 * one, if any, through a {@link GameMetricsListenerComposite}
+	 */
+	public synchronized void addMetricsListener(GameMetricsListener listener) {
+		GameMetricsListener current = metricsListener;
+		if (current == null) {
+			setMetricsListener(listener);
+			return;
+		}
+		GameMetricsListenerComposite composite;
+		if (current instanceof GameMetricsListenerComposite) {
+			composite = (GameMetricsListenerComposite) current;
+		} else {
+			composite = new GameMetricsListenerComposite();
+			composite.add(current);
+		}
+		composite.add(listener);
+		setMetricsListener(composite);
+	}
+
+	/**
+	 * @return the tracer told when the operations of the game loop start and
+	 *         end, or null if they are not traced
+	 */
+	public GameMetricsTracer getMetricsTracer() {
+		return metricsTracer;
+	}
+
+	/**
+	 * Starts tracing the game, or stops it if the tracer is null. Nothing is
+	 * traced by default.
+	 * 
+	 * @see gameframework.metrics.FlightRecorderMetricsTracer
+	 */
+	public void setMetricsTracer(GameMetricsTracer metricsTracer) {
+		this.metricsTracer = metricsTracer;
+		if (moveBlockerChecker instanceof MoveBlockerCheckerDefaultImpl) {
+			((MoveBlockerCheckerDefaultImpl) moveBlockerChecker)
+					.setMetricsTracer(metricsTracer);
+		}
+		if (overlapProcessor instanceof OverlapProcessorDefaultImpl) {
+			((OverlapProcessorDefaultImpl) overlapProcessor)
+					.setMetricsTracer(metricsTracer);
+		} else if (overlapProcessor instanceof OverlapProcessorSweepAndPruneImpl) {
+			((OverlapProcessorSweepAndPruneImpl) overlapProcessor)
+					.setMetricsTracer(metricsTracer);
+		}
+	}
 }
@@ -0,0 +1,223 @@
+package gameframework.game;
+
+import gameframework.motion.GameMovable;
+import gameframework.motion.blocking.MoveBlocker;
+import gameframework.motion.overlapping.Overlappable;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The entities of a universe sorted by their concrete class, with the list of
+ * the movables. The moves iterate only the movables, and
+ * {@link #getEntities(Class)} only the classes of the type asked for. The
+ * other phases do not iterate the registry: the overlappables and the blockers
+ * are kept by the overlap processor and the blocker checker, to which the
+ * universe routes each entity with {@link #getCapabilities(GameEntity)}, found
+ * once per class instead of testing every entity. Painting iterates all the
+ * entities of the universe, since they are all drawable.
+ *
+ * The lists are plain lists, modified and iterated by the universe under its
+ * lock. Each entity knows its index in its lists, so that it is removed in
+ * constant time by moving the last element in its place: the order of the
+ * lists is not the order of addition. While the movables are scanned, between
+ * {@link #beginScan()} and {@link #endScan()}, their order must be kept, so
+ * removed movables only leave a hole, filled when the scan ends: the scan
+ * skips them, and reaches the movables added meanwhile.
+ */
+public class GameEntityRegistry {
+	public static final int MOVABLE = 1;
+	public static final int OVERLAPPABLE = 2;
+	public static final int BLOCKER = 4;
+
+	/* May contain holes, null, while scanned */
+	protected final List<GameMovable> movables = new ArrayList<GameMovable>();
+
+	/*
+	 * Every entity added and not removed yet, with its index in its bucket and
+	 * in the movables, -1 if it was not movable when added
+	 */
+	private final Map<GameEntity, int[]> indexes = new IdentityHashMap<GameEntity, int[]>();
+
+	/* Capabilities of the classes seen, and entities by concrete class */
+	private final Map<Class<?>, Integer> capabilities = new ConcurrentHashMap<Class<?>, Integer>();
+	private final Map<Class<?>, List<GameEntity>> buckets = new ConcurrentHashMap<Class<?>, List<GameEntity>>();
+
+	/*
+	 * Buckets of the subclasses of each type queried so far, forgotten when a
+	 * new concrete class is added
+	 */
+	private final Map<Class<?>, List<List<GameEntity>>> bucketsByType = new ConcurrentHashMap<Class<?>, List<List<GameEntity>>>();
+
+	/* Number of nested scans, and whether removals left holes during them */
+	private int scans = 0;
+	private boolean holes = false;
+
+	/**
+	 * @return the capabilities of the entity, a combination of
+	 *         {@link #MOVABLE}, {@link #OVERLAPPABLE} and {@link #BLOCKER}
+	 */
+	public int getCapabilities(GameEntity entity) {
+		Integer result = capabilities.get(entity.getClass());
+		if (result == null) {
+			result = (entity instanceof Overlappable ? OVERLAPPABLE : 0)
+					| (entity instanceof MoveBlocker ? BLOCKER : 0);
+			capabilities.put(entity.getClass(), result);
+		}
+		return result | (entity.isMovable() ? MOVABLE : 0);
+	}
+
+	public synchronized void add(GameEntity entity) {
+		if (indexes.containsKey(entity)) {
+			return;
+		}
+		int[] index = new int[] { 0, -1 };
+		if ((getCapabilities(entity) & MOVABLE) != 0) {
+			index[1] = movables.size();
+			movables.add((GameMovable) entity);
+		}
+		List<GameEntity> bucket = buckets.get(entity.getClass());
+		if (bucket == null) {
+			bucket = new ArrayList<GameEntity>();
+			buckets.put(entity.getClass(), bucket);
+			bucketsByType.clear();
+		}
+		index[0] = bucket.size();
+		bucket.add(entity);
+		indexes.put(entity, index);
+	}
+
+	/**
+	 * Removes the entity in constant time, from the lists it was added to even
+	 * if it stopped being movable since
+	 */
+	public synchronized void remove(GameEntity entity) {
+		int[] index = indexes.remove(entity);
+		if (index == null) {
+			return;
+		}
+		List<GameEntity> bucket = buckets.get(entity.getClass());
+		GameEntity last = bucket.remove(bucket.size() - 1);
+		if (last != entity) {
+			bucket.set(index[0], last);
+			indexes.get(last)[0] = index[0];
+		}
+		if (index[1] < 0) {
+			return;
+		}
+		if (scans > 0) {
+			movables.set(index[1], null);
+			holes = true;
+			return;
+		}
+		GameMovable lastMovable = movables.remove(movables.size() - 1);
+		if (lastMovable != entity) {
+			movables.set(index[1], lastMovable);
+			indexes.get(lastMovable)[1] = index[1];
+		}
+	}
+
+	public synchronized void removeAll(Collection<? extends GameEntity> removed) {
+		for (GameEntity entity : removed) {
+			remove(entity);
+		}
+	}
+
+	public synchronized void clear() {
+		indexes.clear();
+		movables.clear();
+		buckets.clear();
+		bucketsByType.clear();
+		holes = false;
+	}
+
+	public synchronized boolean contains(GameEntity entity) {
+		return indexes.containsKey(entity);
+	}
+
+	/**
+	 * Starts a scan of the movables, see {@link #getMovable(int)}
+	 */
+	public synchronized void beginScan() {
+		scans++;
+	}
+
+	/**
+	 * Ends a scan of the movables, filling the holes after the outermost one
+	 */
+	public synchronized void endScan() {
+		if (--scans == 0 && holes) {
+			int kept = 0;
+			for (int i = 0; i < movables.size(); i++) {
+				GameMovable movable = movables.get(i);
+				if (movable != null) {
+					indexes.get(movable)[1] = kept;
+					movables.set(kept++, movable);
+				}
+			}
+			movables.subList(kept, movables.size()).clear();
+			holes = false;
+		}
+	}
+
+	/**
+	 * @return the number of movables, including the holes left during a scan
+	 */
+	public int getMovableCount() {
+		return movables.size();
+	}
+
+	/**
+	 * @return the movable at the index, or null if it has been removed during
+	 *         the current scan
+	 */
+	public GameMovable getMovable(int index) {
+		return movables.get(index);
+	}
+
+	/**
+	 * @return a copy of the movables, in the order they are moved
+	 */
+	public synchronized List<GameMovable> getMovables() {
+		List<GameMovable> result = new ArrayList<GameMovable>(movables.size());
+		for (GameMovable movable : movables) {
+			if (movable != null) {
+				result.add(movable);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return the entities which are instances of the type, a class or an
+	 *         interface, without visiting the other ones
+	 */
+	public synchronized <T> List<T> getEntities(Class<T> type) {
+		List<List<GameEntity>> matching = bucketsByType.get(type);
+		if (matching == null) {
+			matching = findBuckets(type);
+		}
+		List<T> result = new ArrayList<T>();
+		for (List<GameEntity> bucket : matching) {
+			for (GameEntity entity : bucket) {
+				result.add(type.cast(entity));
+			}
+		}
+		return result;
+	}
+
+	private List<List<GameEntity>> findBuckets(Class<?> type) {
+		List<List<GameEntity>> matching = new ArrayList<List<GameEntity>>();
+		for (Map.Entry<Class<?>, List<GameEntity>> entry : buckets.entrySet()) {
+			if (type.isAssignableFrom(entry.getKey())) {
+				matching.add(entry.getValue());
+			}
+		}
+		bucketsByType.put(type, matching);
+		return matching;
+	}
+}
@@ -1,6 +1,15 @@
 package gameframework.game;
 
+import gameframework.drawing.GameUniverseSnapshotViewPort;
 import gameframework.drawing.GameUniverseViewPort;
+import gameframework.drawing.UniverseSnapshot;
+import gameframework.metrics.GameMetricsListener;
+import gameframework.metrics.GameMetricsListener.Phase;
+import gameframework.metrics.GameMetricsTracer;
+import gameframework.metrics.GameMetricsTracer.Span;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
 
 /**
  * To be implemented with respect to a specific game. Expected to initialize the
@@ -8,13 +17,30 @@ import gameframework.drawing.GameUniverseViewPort;
  */
 public abstract class GameLevelDefaultImpl extends Thread implements GameLevel {
 	private static final int DEFAULT_MINIMUM_DELAY_BETWEEN_GAME_CYCLES = 100;
+	/** Maximum number of ticks run before painting when late */
+	protected static final int MAX_CATCH_UP_TICKS = 5;
+	/* Time before a deadline spent yielding rather than sleeping */
+	private static final long SPIN_DURATION = TimeUnit.MILLISECONDS.toNanos(2);
 	protected final int minimumDelayBetweenCycles;
 	protected GameUniverse universe;
 	protected GameUniverseViewPort gameBoard;
 	protected final GameData data;
 	protected final int spriteSize;
 
-	protected boolean stopGameLoop;
+	protected volatile boolean stopGameLoop;
+	protected boolean fixedTimestep = false;
+	protected int minimumDelayBetweenFrames;
+	/* Part of a tick elapsed since the last one when painting */
+	protected volatile double interpolation = 0;
+	protected boolean pipelined = false;
+
+	/* Snapshot exchanged with the render thread when the loop is pipelined */
+	private final Object snapshotLock = new Object();
+	private UniverseSnapshot latestSnapshot;
+	/* Not null while the render thread paints the snapshots */
+	private GameUniverseSnapshotViewPort snapshotBoard;
+	private boolean renderingStopped;
+	private long frame = 0;
 
 	protected abstract void init();
 
@@ -27,6 +53,7 @@ public abstract class GameLevelDefaultImpl extends Thread implements GameLevel {
 		this.spriteSize = data.getConfiguration().getSpriteSize();
 		this.universe = data.getUniverse();
 		this.minimumDelayBetweenCycles = minimumDelayBetweenCycles;
+		this.minimumDelayBetweenFrames = minimumDelayBetweenCycles;
 	}
 
 	@Override
@@ -43,13 +70,169 @@ public abstract class GameLevelDefaultImpl extends Thread implements GameLevel {
 	@Override
 	public void run() {
 		stopGameLoop = false;
+		if (data.getConfiguration().isHeadless()) {
+			runHeadless();
+			return;
+		}
+		Thread renderer = null;
+		if (pipelined && gameBoard instanceof GameUniverseSnapshotViewPort) {
+			snapshotBoard = (GameUniverseSnapshotViewPort) gameBoard;
+			renderer = startRenderer();
+		}
+		try {
+			if (fixedTimestep) {
+				runFixedTimestep();
+			} else {
+				runVariableTimestep();
+			}
+		} finally {
+			if (renderer != null) {
+				stopRenderer(renderer);
+				snapshotBoard = null;
+			}
+		}
+	}
+
+	/**
+	 * Paints the board, or only publishes a snapshot of the universe for the
+	 * render thread when the loop is pipelined
+	 */
+	protected void paintFrame() {
+		GameMetricsListener metrics = data.getMetricsListener();
+		if (metrics == null) {
+			paintFrameUnmeasured();
+			return;
+		}
+		long start = System.nanoTime();
+		paintFrameUnmeasured();
+		metrics.phaseTimed(Phase.PAINT, System.nanoTime() - start);
+	}
+
+	private void paintFrameUnmeasured() {
+		if (snapshotBoard != null) {
+			publishSnapshot(UniverseSnapshot.take(
+					universe.getGameEntitiesIterator(), frame++));
+		} else {
+			gameBoard.paint();
+		}
+	}
+
+	/**
+	 * Replaces the snapshot waiting to be painted, if the render thread did
+	 * not take it yet
+	 */
+	protected void publishSnapshot(UniverseSnapshot snapshot) {
+		synchronized (snapshotLock) {
+			latestSnapshot = snapshot;
+			snapshotLock.notifyAll();
+		}
+	}
+
+	/**
+	 * Run by the render thread: paints the latest snapshot each time a new one
+	 * is published
+	 */
+	protected void renderLoop() {
+		while (true) {
+			UniverseSnapshot snapshot;
+			synchronized (snapshotLock) {
+				while (latestSnapshot == null && !renderingStopped) {
+					try {
+						snapshotLock.wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (latestSnapshot == null) {
+					return;
+				}
+				snapshot = latestSnapshot;
+				latestSnapshot = null;
+			}
+			snapshotBoard.paint(snapshot);
+		}
+	}
+
+	private Thread startRenderer() {
+		renderingStopped = false;
+		Thread renderer = new Thread(new Runnable() {
+
+			@Override
+			public void run() {
+				renderLoop();
+			}
+		}, getName() + "-render");
+		renderer.setDaemon(true);
+		renderer.start();
+		return renderer;
+	}
+
+	private void stopRenderer(Thread renderer) {
+		synchronized (snapshotLock) {
+			renderingStopped = true;
+			snapshotLock.notifyAll();
+		}
+		try {
+			renderer.join();
+		} catch (InterruptedException e) {
+			renderer.interrupt();
+		}
+	}
+
+	/**
+	 * Moves the entities once and applies the overlap rules
+	 */
+	protected void tick() {
+		GameMetricsTracer tracer = data.getMetricsTracer();
+		Object span = tracer == null ? null : tracer.started(Span.TICK);
+		GameMetricsListener metrics = data.getMetricsListener();
+		if (metrics == null) {
+			universe.allOneStepMoves();
+			universe.processAllOverlaps();
+		} else {
+			long start = System.nanoTime();
+			universe.allOneStepMoves();
+			long moved = System.nanoTime();
+			universe.processAllOverlaps();
+			long end = System.nanoTime();
+			metrics.phaseTimed(Phase.MOVES, moved - start);
+			metrics.phaseTimed(Phase.OVERLAPS, end - moved);
+			metrics.phaseTimed(Phase.TICK, end - start);
+		}
+		if (span != null) {
+			tracer.ended(span, countEntities(), 0);
+		}
+	}
+
+	private int countEntities() {
+		int count = 0;
+		for (Iterator<GameEntity> it = universe.getGameEntitiesIterator(); it
+				.hasNext(); it.next()) {
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Runs the ticks one after the other, without painting nor waiting
+	 */
+	protected void runHeadless() {
+		while (!stopGameLoop && !this.isInterrupted()) {
+			tick();
+		}
+	}
+
+	/**
+	 * Paints then moves, and waits for what remains of
+	 * <code>minimumDelayBetweenCycles</code>
+	 */
+	protected void runVariableTimestep() {
 		// main game loop :
 		long start;
 		while (!stopGameLoop && !this.isInterrupted()) {
 			start = System.currentTimeMillis();
-			gameBoard.paint();
-			universe.allOneStepMoves();
-			universe.processAllOverlaps();
+			paintFrame();
+			tick();
 			long sleepTime = minimumDelayBetweenCycles
 					- (System.currentTimeMillis() - start);
 			if (sleepTime > 0) {
@@ -62,6 +245,118 @@ public abstract class GameLevelDefaultImpl extends Thread implements GameLevel {
 		}
 	}
 
+	/**
+	 * Runs one tick every <code>minimumDelayBetweenCycles</code> milliseconds,
+	 * measured with {@link System#nanoTime()}. When a frame took too long, the
+	 * missed ticks are run before painting again, up to
+	 * {@link #MAX_CATCH_UP_TICKS}; the ones beyond are dropped. The board is
+	 * painted every <code>minimumDelayBetweenFrames</code> milliseconds,
+	 * whether a tick was run or not, with {@link #getInterpolation()} telling
+	 * how far the loop is between the last tick and the next one.
+	 */
+	protected void runFixedTimestep() {
+		long tickDuration = TimeUnit.MILLISECONDS.toNanos(Math.max(1,
+				minimumDelayBetweenCycles));
+		long frameDuration = TimeUnit.MILLISECONDS.toNanos(Math.max(1,
+				minimumDelayBetweenFrames));
+		long previous = System.nanoTime();
+		long nextFrame = previous;
+		// so that the first tick is run right away
+		long accumulator = tickDuration;
+		while (!stopGameLoop && !this.isInterrupted()) {
+			long now = System.nanoTime();
+			accumulator += now - previous;
+			previous = now;
+
+			int ticks = 0;
+			while (accumulator >= tickDuration && ticks < MAX_CATCH_UP_TICKS
+					&& !stopGameLoop) {
+				tick();
+				accumulator -= tickDuration;
+				ticks++;
+			}
+			if (accumulator >= tickDuration) {
+				accumulator %= tickDuration;
+			}
+			if (now - nextFrame >= 0 && !stopGameLoop) {
+				interpolation = (double) accumulator / tickDuration;
+				paintFrame();
+				// frames late by more than one are dropped
+				nextFrame = Math.max(nextFrame + frameDuration, now);
+			}
+			long nextTick = previous + tickDuration - accumulator;
+			waitUntil(nextTick - nextFrame < 0 ? nextTick : nextFrame);
+		}
+	}
+
+	/**
+	 * Sleeps until shortly before <code>deadline</code>, then yields until it
+	 * is reached, since sleeps often last a few milliseconds more than asked
+	 */
+	protected void waitUntil(long deadline) {
+		long remaining;
+		while ((remaining = deadline - System.nanoTime()) > 0
+				&& !stopGameLoop) {
+			if (remaining > SPIN_DURATION) {
+				try {
+					Thread.sleep(TimeUnit.NANOSECONDS.toMillis(remaining
+							- SPIN_DURATION));
+				} catch (InterruptedException e) {
+					// that's ok, we just didn't managed to finish sleeping
+				}
+			} else {
+				Thread.yield();
+			}
+		}
+	}
+
+	/**
+	 * By default, a game cycle paints then moves, and the next one starts at
+	 * least <code>minimumDelayBetweenCycles</code> milliseconds later. If
+	 * <code>fixedTimestep</code> is true, moves run exactly every
+	 * <code>minimumDelayBetweenCycles</code> milliseconds instead, see
+	 * {@link #runFixedTimestep()}. To be called before {@link #start()}.
+	 */
+	public void setFixedTimestep(boolean fixedTimestep) {
+		this.fixedTimestep = fixedTimestep;
+	}
+
+	/**
+	 * Sets how often the board is painted when the timestep is fixed, by
+	 * default as often as the ticks are run. To be called before
+	 * {@link #start()}.
+	 */
+	public void setMinimumDelayBetweenFrames(int minimumDelayBetweenFrames) {
+		this.minimumDelayBetweenFrames = minimumDelayBetweenFrames;
+	}
+
+	/**
+	 * @return the part of a tick, between 0 and 1, elapsed since the last tick
+	 *         when the current frame started to be painted, so that boards can
+	 *         draw the entities between their last position and the next one.
+	 *         Always 0 if the timestep is not fixed.
+	 */
+	public double getInterpolation() {
+		return interpolation;
+	}
+
+	/**
+	 * If <code>pipelined</code> is true, the game loop publishes a
+	 * {@link UniverseSnapshot} instead of painting, and a render thread paints
+	 * the latest one, so that painting and moving run at the same time. The
+	 * loop is only pipelined if the board is a
+	 * {@link GameUniverseSnapshotViewPort}. To be called before
+	 * {@link #start()}.
+	 * <p>
+	 * The render thread never reads the entities: the ones which are not
+	 * {@link gameframework.drawing.Snapshotable} are drawn into an image of
+	 * their bounding box at each snapshot, and are not drawn at all if they
+	 * have no bounding box.
+	 */
+	public void setPipelined(boolean pipelined) {
+		this.pipelined = pipelined;
+	}
+
 	@Override
 	public void end() {
 		stopGameLoop = true;
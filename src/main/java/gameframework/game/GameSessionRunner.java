@@ -0,0 +1,281 @@
+package gameframework.game;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the levels of many games in the same JVM without a thread per level.
+ * Each tick of a level is a task run by a shared executor; a single scheduler
+ * thread submits the task when the next tick of the level is due, that is
+ * <code>minimumDelayBetweenCycles</code> milliseconds after the start of the
+ * previous one, or right away for headless games. Ticks of a same level never
+ * overlap.
+ *
+ * By default, ticks run on virtual threads when the JVM provides them, and on
+ * a pool with one thread per core otherwise.
+ *
+ * The levels given to the runner must not be started as threads. As with
+ * {@link GameDefaultImpl}, a level ends when {@link GameLevel#end()} is called
+ * or when the game is over, then the next level of the game starts.
+ */
+public class GameSessionRunner {
+
+	protected final ExecutorService tickExecutor;
+	protected final ScheduledExecutorService scheduler;
+
+	/* Set by shutdown(), before ticks are rejected */
+	private volatile boolean shuttingDown = false;
+
+	/* Sessions started and not ended yet */
+	private final Set<GameSession> sessions = Collections
+			.newSetFromMap(new ConcurrentHashMap<GameSession, Boolean>());
+
+	public GameSessionRunner() {
+		this(createDefaultExecutor());
+	}
+
+	/**
+	 * @param tickExecutor
+	 *            the executor running the ticks, shut down with the runner
+	 */
+	public GameSessionRunner(ExecutorService tickExecutor) {
+		this.tickExecutor = tickExecutor;
+		this.scheduler = Executors
+				.newSingleThreadScheduledExecutor(new ThreadFactory() {
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread thread = new Thread(r, "game-session-scheduler");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+	}
+
+	/**
+	 * @return an executor creating a virtual thread per task if the JVM
+	 *         supports it, else a pool with one thread per core
+	 */
+	public static ExecutorService createDefaultExecutor() {
+		try {
+			Method factory = Executors.class
+					.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (Exception e) {
+			return Executors.newFixedThreadPool(Runtime.getRuntime()
+					.availableProcessors(), new ThreadFactory() {
+				private int count = 0;
+
+				@Override
+				public synchronized Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "game-session-" + count++);
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Starts playing the levels of the game, one after the other
+	 */
+	public GameSession start(GameData data) {
+		List<GameLevelDefaultImpl> levels = new ArrayList<GameLevelDefaultImpl>();
+		for (GameLevel level : data.getLevels()) {
+			levels.add((GameLevelDefaultImpl) level);
+		}
+		GameSession session = new GameSession(data, levels.iterator());
+		sessions.add(session);
+		session.nextLevel();
+		return session;
+	}
+
+	/**
+	 * Stops scheduling ticks. Sessions that have not ended are cancelled: the
+	 * ones waiting for their next tick end right away, the others at the end
+	 * of the tick they are running or waiting to run.
+	 */
+	public void shutdown() {
+		shuttingDown = true;
+		scheduler.shutdownNow();
+		tickExecutor.shutdown();
+		for (GameSession session : sessions) {
+			session.cancel();
+			if (session.waitingForScheduler) {
+				// its next tick was dropped by the scheduler
+				session.finish(null);
+			}
+		}
+	}
+
+	/**
+	 * A game played by the runner
+	 */
+	public class GameSession {
+		protected final GameData data;
+		private final Iterator<GameLevelDefaultImpl> levels;
+		private final CountDownLatch done = new CountDownLatch(1);
+		private volatile GameLevelDefaultImpl currentLevel;
+		private volatile boolean cancelled = false;
+		private volatile Throwable failure;
+		/* Set while the next tick is waiting in the scheduler */
+		private volatile boolean waitingForScheduler = false;
+		private boolean levelInitialized = false;
+		private long tickStart;
+
+		private final Runnable tickTask = new Runnable() {
+
+			@Override
+			public void run() {
+				runTick();
+			}
+		};
+
+		private final Runnable submitTick = new Runnable() {
+
+			@Override
+			public void run() {
+				waitingForScheduler = false;
+				submit();
+			}
+		};
+
+		GameSession(GameData data, Iterator<GameLevelDefaultImpl> levels) {
+			this.data = data;
+			this.levels = levels;
+		}
+
+		public GameLevel getCurrentLevel() {
+			return currentLevel;
+		}
+
+		public boolean isDone() {
+			return done.getCount() == 0;
+		}
+
+		/**
+		 * @return the exception thrown by a tick, which ended the session
+		 */
+		public Throwable getFailure() {
+			return failure;
+		}
+
+		/**
+		 * Stops the session after the tick in progress, if any
+		 */
+		public void cancel() {
+			cancelled = true;
+			GameLevelDefaultImpl level = currentLevel;
+			if (level != null) {
+				level.end();
+			}
+		}
+
+		public void awaitTermination() throws InterruptedException {
+			done.await();
+		}
+
+		public boolean awaitTermination(long timeout, TimeUnit unit)
+				throws InterruptedException {
+			return done.await(timeout, unit);
+		}
+
+		void nextLevel() {
+			if (cancelled || !levels.hasNext()) {
+				currentLevel = null;
+				ended();
+				return;
+			}
+			GameLevelDefaultImpl level = levels.next();
+			data.getEndOfGame().setValue(false);
+			level.stopGameLoop = false;
+			currentLevel = level;
+			submit();
+		}
+
+		private void submit() {
+			try {
+				tickExecutor.execute(tickTask);
+			} catch (RejectedExecutionException e) {
+				finishRejected(e);
+			}
+		}
+
+		private void runTick() {
+			GameLevelDefaultImpl level = currentLevel;
+			try {
+				if (!levelInitialized) {
+					level.init();
+					levelInitialized = true;
+				}
+				tickStart = System.nanoTime();
+				if (!isLevelOver(level)) {
+					if (!data.getConfiguration().isHeadless()) {
+						level.paintFrame();
+					}
+					level.tick();
+				}
+			} catch (Throwable e) {
+				finish(e);
+				return;
+			}
+
+			if (isLevelOver(level)) {
+				levelInitialized = false;
+				nextLevel();
+				return;
+			}
+			long delay = TimeUnit.MILLISECONDS
+					.toNanos(level.minimumDelayBetweenCycles)
+					- (System.nanoTime() - tickStart);
+			// headless games don't wait, as in GameLevelDefaultImpl
+			if (delay <= 0 || data.getConfiguration().isHeadless()) {
+				submit();
+			} else {
+				waitingForScheduler = true;
+				try {
+					scheduler.schedule(submitTick, delay, TimeUnit.NANOSECONDS);
+				} catch (RejectedExecutionException e) {
+					waitingForScheduler = false;
+					finishRejected(e);
+				}
+			}
+		}
+
+		private boolean isLevelOver(GameLevelDefaultImpl level) {
+			return cancelled || level.stopGameLoop
+					|| data.getEndOfGame().getValue()
+					|| data.getLife().getValue() <= 0;
+		}
+
+		private synchronized void finish(Throwable e) {
+			if (!isDone()) {
+				failure = e;
+			}
+			currentLevel = null;
+			ended();
+		}
+
+		/* Rejected ticks are not a failure once the runner is shut down */
+		private void finishRejected(RejectedExecutionException e) {
+			finish(shuttingDown ? null : e);
+		}
+
+		private void ended() {
+			sessions.remove(this);
+			done.countDown();
+		}
+	}
+}
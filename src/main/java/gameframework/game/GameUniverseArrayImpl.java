@@ -0,0 +1,134 @@
+package gameframework.game;
+
+import gameframework.motion.GameMovable;
+import gameframework.motion.GameMovableStore;
+import gameframework.motion.blocking.BatchMoveBlockerChecker;
+import gameframework.motion.overlapping.OverlapProcessor;
+import gameframework.motion.overlapping.OverlapProcessorDefaultImpl;
+import gameframework.motion.overlapping.OverlapProcessorSweepAndPruneImpl;
+
+import java.util.Set;
+
+/**
+ * Universe keeping its movables in a {@link GameMovableStore}. The movables
+ * are moved by scanning the store rather than the queue of entities, and
+ * their geometry is copied into the arrays of the store once per tick, before
+ * the overlaps are computed, so that the overlap processors read it from
+ * there.
+ * 
+ * The geometry of the movables must not change between the start of
+ * {@link #processAllOverlaps()} and the application of the overlap rules.
+ * Entities are still iterated, and painted, in the order they were added.
+ */
+public class GameUniverseArrayImpl extends GameUniverseDefaultImpl {
+
+	protected final GameMovableStore movables = new GameMovableStore();
+
+	/* True once the overlap processor reads the geometry from the store */
+	private boolean storeRead = false;
+
+	public GameUniverseArrayImpl(GameData gameData) {
+		super(gameData);
+		storeRead = giveStoreToOverlapProcessor();
+	}
+
+	/**
+	 * Tells the default and sweep and prune overlap processors to read the
+	 * geometry of the movables from the store
+	 * 
+	 * @return false if the overlap processor can't read the store, or is not
+	 *         created yet
+	 */
+	protected boolean giveStoreToOverlapProcessor() {
+		OverlapProcessor overlapProcessor = getOverlapProcessor();
+		if (overlapProcessor instanceof OverlapProcessorDefaultImpl) {
+			((OverlapProcessorDefaultImpl) overlapProcessor)
+					.setMovableStore(movables);
+			return true;
+		}
+		if (overlapProcessor instanceof OverlapProcessorSweepAndPruneImpl) {
+			((OverlapProcessorSweepAndPruneImpl) overlapProcessor)
+					.setMovableStore(movables);
+			return true;
+		}
+		return false;
+	}
+
+	@Override
+	protected synchronized void addGameEntityNow(GameEntity gameEntity) {
+		// stored first, so that the processors see the geometry of the movable
+		if (gameEntity.isMovable()) {
+			movables.add((GameMovable) gameEntity);
+		}
+		super.addGameEntityNow(gameEntity);
+	}
+
+	@Override
+	protected synchronized void removeGameEntityNow(GameEntity gameEntity) {
+		super.removeGameEntityNow(gameEntity);
+		if (gameEntity.isMovable()) {
+			movables.remove((GameMovable) gameEntity);
+		}
+	}
+
+	@Override
+	protected synchronized void removeGameEntitiesAtOnce(
+			Set<GameEntity> removed) {
+		super.removeGameEntitiesAtOnce(removed);
+		for (GameEntity gameEntity : removed) {
+			if (gameEntity.isMovable()) {
+				movables.remove((GameMovable) gameEntity);
+			}
+		}
+	}
+
+	@Override
+	public synchronized void removeAllGameEntities() {
+		super.removeAllGameEntities();
+		movables.removeAll();
+	}
+
+	/**
+	 * The scan holds the lock of the universe: entities added by other threads
+	 * wait for the end of the moves
+	 */
+	@Override
+	protected synchronized void moveAll() {
+		if (batchedMoves
+				&& getMoveBlockerChecker() instanceof BatchMoveBlockerChecker) {
+			allOneStepMovesBatched();
+			return;
+		}
+		movables.beginScan();
+		try {
+			for (int i = 0; i < movables.size(); i++) {
+				GameMovable movable = movables.get(i);
+				if (movable != null) {
+					movable.oneStepMove();
+				}
+			}
+		} finally {
+			movables.endScan();
+		}
+	}
+
+	/**
+	 * Refreshes the store first, if the overlap processor reads it
+	 */
+	@Override
+	public void processAllOverlaps() {
+		synchronized (this) {
+			if (!storeRead) {
+				storeRead = giveStoreToOverlapProcessor();
+			}
+			if (storeRead) {
+				movables.updateAll();
+			}
+		}
+		super.processAllOverlaps();
+	}
+
+	public GameMovableStore getMovableStore() {
+		return movables;
+	}
+}
@@ -1,20 +1,58 @@
 package gameframework.game;
 
+import gameframework.motion.blocking.BatchMoveBlockerChecker;
+import gameframework.motion.blocking.BatchRemovalMoveBlockerChecker;
 import gameframework.motion.blocking.MoveBlocker;
 import gameframework.motion.blocking.MoveBlockerChecker;
+import gameframework.motion.overlapping.BatchRemovalOverlapProcessor;
 import gameframework.motion.overlapping.OverlapProcessor;
 import gameframework.motion.overlapping.Overlappable;
 import gameframework.motion.GameMovable;
+import gameframework.motion.GameMovableDriver;
+import gameframework.motion.GameMovableDriverDefaultImpl;
+import gameframework.motion.SpeedVector;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class GameUniverseDefaultImpl implements GameUniverse {
 	protected ConcurrentLinkedQueue<GameEntity> gameEntities = new ConcurrentLinkedQueue<GameEntity>();
 	protected final GameData data;
 
-	
+	/**
+	 * The entities sorted by what they can do, iterated by the phases of a
+	 * tick instead of the queue
+	 */
+	protected final GameEntityRegistry registry = new GameEntityRegistry();
+
+	/**
+	 * If true, entities added or removed while the entities move or overlap
+	 * are only added or removed at the end of the phase
+	 * @see #setDeferredChanges(boolean)
+	 */
+	protected boolean deferredChanges = false;
+
+	/*
+	 * Changes waiting for the end of the phase, and nesting of the phases.
+	 * The additions are kept in order, those in pendingAdded are still to do.
+	 */
+	private final List<GameEntity> pendingAdditions = new ArrayList<GameEntity>();
+	private final Set<GameEntity> pendingAdded = Collections
+			.newSetFromMap(new IdentityHashMap<GameEntity, Boolean>());
+	private final Set<GameEntity> pendingRemovals = Collections
+			.newSetFromMap(new IdentityHashMap<GameEntity, Boolean>());
+	private int deferringPhases = 0;
+
+	private final List<GameUniverseListener> listeners = new CopyOnWriteArrayList<GameUniverseListener>();
+
 	public GameUniverseDefaultImpl(GameData gameData) {
 		data = gameData;
 	}
@@ -24,44 +62,353 @@ public class GameUniverseDefaultImpl implements GameUniverse {
 		return gameEntities.iterator();
 	}
 
+	/**
+	 * @return the entities which are instances of the type, found without
+	 *         visiting the other entities
+	 */
+	public <T> List<T> getGameEntities(Class<T> type) {
+		return registry.getEntities(type);
+	}
+
+	public GameEntityRegistry getRegistry() {
+		return registry;
+	}
+
+	public void addGameUniverseListener(GameUniverseListener listener) {
+		listeners.add(listener);
+	}
+
+	public void removeGameUniverseListener(GameUniverseListener listener) {
+		listeners.remove(listener);
+	}
+
 	@Override
 	public synchronized void addGameEntity(GameEntity gameEntity) {
+		if (deferringPhases > 0) {
+			if (!pendingRemovals.remove(gameEntity)
+					&& pendingAdded.add(gameEntity)) {
+				pendingAdditions.add(gameEntity);
+			}
+			return;
+		}
+		addGameEntityNow(gameEntity);
+	}
+
+	protected synchronized void addGameEntityNow(GameEntity gameEntity) {
 		gameEntities.add(gameEntity);
-		if (gameEntity instanceof Overlappable) {
+		registry.add(gameEntity);
+		int capabilities = registry.getCapabilities(gameEntity);
+		if ((capabilities & GameEntityRegistry.OVERLAPPABLE) != 0) {
 			getOverlapProcessor().addOverlappable((Overlappable) gameEntity);
 		}
-		if (gameEntity instanceof MoveBlocker) {
+		if ((capabilities & GameEntityRegistry.BLOCKER) != 0) {
 			getMoveBlockerChecker().addMoveBlocker((MoveBlocker) gameEntity);
 		}
+		for (GameUniverseListener listener : listeners) {
+			listener.gameEntityAdded(gameEntity);
+		}
 	}
 
 	protected synchronized void removeOverlappableAndBlockerGameEntity(GameEntity gameEntity) {
-		if (gameEntity instanceof Overlappable) {
+		int capabilities = registry.getCapabilities(gameEntity);
+		if ((capabilities & GameEntityRegistry.OVERLAPPABLE) != 0) {
 			getOverlapProcessor().removeOverlappable((Overlappable) gameEntity);
 		}
-		if (gameEntity instanceof MoveBlocker) {
+		if ((capabilities & GameEntityRegistry.BLOCKER) != 0) {
 			getMoveBlockerChecker().removeMoveBlocker((MoveBlocker) gameEntity);
 		}
 	}
 
 	@Override
 	public synchronized void removeGameEntity(GameEntity gameEntity) {
-		gameEntities.remove(gameEntity);
+		if (deferringPhases > 0) {
+			if (!pendingAdded.remove(gameEntity)) {
+				pendingRemovals.add(gameEntity);
+			}
+			return;
+		}
+		removeGameEntityNow(gameEntity);
+	}
+
+	protected synchronized void removeGameEntityNow(GameEntity gameEntity) {
+		boolean removed = gameEntities.remove(gameEntity);
+		registry.remove(gameEntity);
 		this.removeOverlappableAndBlockerGameEntity(gameEntity);
+		if (removed) {
+			for (GameUniverseListener listener : listeners) {
+				listener.gameEntityRemoved(gameEntity);
+			}
+		}
+	}
+
+	/**
+	 * Removes the entities walking each collection only once, and the
+	 * processor and the checker too if they can remove several entities in a
+	 * single call
+	 */
+	protected synchronized void removeGameEntitiesAtOnce(
+			Set<GameEntity> removed) {
+		gameEntities.removeAll(removed);
+		registry.removeAll(removed);
+		List<Overlappable> overlappables = new ArrayList<Overlappable>();
+		List<MoveBlocker> blockers = new ArrayList<MoveBlocker>();
+		for (GameEntity gameEntity : removed) {
+			int capabilities = registry.getCapabilities(gameEntity);
+			if ((capabilities & GameEntityRegistry.OVERLAPPABLE) != 0) {
+				overlappables.add((Overlappable) gameEntity);
+			}
+			if ((capabilities & GameEntityRegistry.BLOCKER) != 0) {
+				blockers.add((MoveBlocker) gameEntity);
+			}
+		}
+		OverlapProcessor overlapProcessor = getOverlapProcessor();
+		if (overlapProcessor instanceof BatchRemovalOverlapProcessor) {
+			if (!overlappables.isEmpty()) {
+				((BatchRemovalOverlapProcessor) overlapProcessor)
+						.removeOverlappables(overlappables);
+			}
+		} else {
+			for (Overlappable overlappable : overlappables) {
+				overlapProcessor.removeOverlappable(overlappable);
+			}
+		}
+		MoveBlockerChecker checker = getMoveBlockerChecker();
+		if (checker instanceof BatchRemovalMoveBlockerChecker) {
+			if (!blockers.isEmpty()) {
+				((BatchRemovalMoveBlockerChecker) checker)
+						.removeMoveBlockers(blockers);
+			}
+		} else {
+			for (MoveBlocker blocker : blockers) {
+				checker.removeMoveBlocker(blocker);
+			}
+		}
+		if (!listeners.isEmpty()) {
+			for (GameEntity gameEntity : removed) {
+				for (GameUniverseListener listener : listeners) {
+					listener.gameEntityRemoved(gameEntity);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Entities added or removed by the moves or by the overlap rules are, by
+	 * default, added or removed right away. If <code>deferredChanges</code>
+	 * is true, they are added or removed all at once at the end of
+	 * {@link #allOneStepMoves()} and of {@link #processAllOverlaps()}: a
+	 * removed entity may still move or overlap until then. To be called
+	 * between two ticks.
+	 */
+	public synchronized void setDeferredChanges(boolean deferredChanges) {
+		this.deferredChanges = deferredChanges;
+	}
+
+	/**
+	 * Starts delaying the changes if they are deferred
+	 */
+	protected synchronized void beginPhase() {
+		if (deferredChanges || deferringPhases > 0) {
+			deferringPhases++;
+		}
+	}
+
+	/**
+	 * Applies the delayed changes at the end of the outermost phase
+	 */
+	protected synchronized void endPhase() {
+		if (deferringPhases == 0 || --deferringPhases > 0) {
+			return;
+		}
+		if (!pendingRemovals.isEmpty()) {
+			removeGameEntitiesAtOnce(pendingRemovals);
+			pendingRemovals.clear();
+		}
+		for (GameEntity gameEntity : pendingAdditions) {
+			if (pendingAdded.remove(gameEntity)) {
+				addGameEntityNow(gameEntity);
+			}
+		}
+		pendingAdditions.clear();
 	}
 
+	/**
+	 * If true, {@link #allOneStepMoves()} validates the moves of the movables
+	 * all at once
+	 * @see #setBatchedMoves(boolean)
+	 */
+	protected boolean batchedMoves = false;
+
+	/* Reused between ticks by the batched moves */
+	private GameMovable[] batchMovables = new GameMovable[0];
+	private SpeedVector[] batchSpeedVectors = new SpeedVector[0];
+	private boolean[] batchValidated = new boolean[0];
+	private GameMovable[] retryMovables = new GameMovable[0];
+	private SpeedVector[] retrySpeedVectors = new SpeedVector[0];
+	private boolean[] retryValidated = new boolean[0];
+	private int[] retryIndexes = new int[0];
+	private final List<GameMovable> otherMovables = new ArrayList<GameMovable>();
+
 	@Override
 	public void allOneStepMoves() {
-		for (GameEntity entity : gameEntities) {
-			if (entity.isMovable()) {
-				((GameMovable) entity).oneStepMove();
+		beginPhase();
+		try {
+			moveAll();
+		} finally {
+			endPhase();
+		}
+	}
+
+	/**
+	 * Moves the movables, one by one or in a batch. The scan holds the lock of
+	 * the universe: a movable removed by a move doesn't move if it hasn't yet,
+	 * and a movable added moves in the same tick, unless the changes are
+	 * deferred.
+	 */
+	protected synchronized void moveAll() {
+		if (batchedMoves
+				&& getMoveBlockerChecker() instanceof BatchMoveBlockerChecker) {
+			allOneStepMovesBatched();
+			return;
+		}
+		registry.beginScan();
+		try {
+			for (int i = 0; i < registry.getMovableCount(); i++) {
+				GameMovable movable = registry.getMovable(i);
+				if (movable != null) {
+					movable.oneStepMove();
+				}
+			}
+		} finally {
+			registry.endScan();
+		}
+	}
+
+	/**
+	 * Moves the movables driven by a {@link GameMovableDriverDefaultImpl},
+	 * and not by a subclass of it, using the move blocker checker of the
+	 * universe after validating all their moves with a single call to
+	 * {@link BatchMoveBlockerChecker#moveValidationAll}. The moves are validated
+	 * against the positions before the tick: a movable doesn't see where the
+	 * others have just moved. The other movables are then moved one by one,
+	 * followed by the movables added meanwhile.
+	 */
+	protected synchronized void allOneStepMovesBatched() {
+		registry.beginScan();
+		try {
+			moveBatched();
+		} finally {
+			registry.endScan();
+		}
+	}
+
+	private void moveBatched() {
+		BatchMoveBlockerChecker checker =
+				(BatchMoveBlockerChecker) getMoveBlockerChecker();
+		int scanned = registry.getMovableCount();
+		int count = 0;
+		for (int index = 0; index < scanned; index++) {
+			GameMovable movable = registry.getMovable(index);
+			if (movable == null) {
+				continue;
+			}
+			GameMovableDriver driver = movable.getDriver();
+			// a subclass may change how the driver validates the move
+			if (driver != null
+					&& driver.getClass() == GameMovableDriverDefaultImpl.class
+					&& ((GameMovableDriverDefaultImpl) driver)
+							.getMoveBlockerChecker() == checker) {
+				ensureBatchCapacity(count + 1);
+				batchMovables[count] = movable;
+				batchSpeedVectors[count] = ((GameMovableDriverDefaultImpl) driver)
+						.getStrategy().getSpeedVector();
+				count++;
+			} else {
+				otherMovables.add(movable);
+			}
+		}
+
+		checker.moveValidationAll(batchMovables, batchSpeedVectors, count,
+				batchValidated);
+
+		// As the driver does, try to keep the current vector when the
+		// strategy did not provide a valid one
+		int nbRetries = 0;
+		for (int i = 0; i < count; i++) {
+			if (!batchValidated[i]) {
+				retryIndexes[nbRetries] = i;
+				retryMovables[nbRetries] = batchMovables[i];
+				retrySpeedVectors[nbRetries] = batchMovables[i]
+						.getSpeedVector();
+				nbRetries++;
+			}
+		}
+		if (nbRetries > 0) {
+			checker.moveValidationAll(retryMovables, retrySpeedVectors,
+					nbRetries, retryValidated);
+			for (int j = 0; j < nbRetries; j++) {
+				batchSpeedVectors[retryIndexes[j]] = retryValidated[j] ? retrySpeedVectors[j]
+						: SpeedVector.createNullVector();
+			}
+		}
+
+		// a movable removed by a previous move doesn't move
+		for (int i = 0; i < count; i++) {
+			if (registry.contains((GameEntity) batchMovables[i])) {
+				batchMovables[i].oneStepMove(batchSpeedVectors[i]);
+			}
+		}
+		for (GameMovable movable : otherMovables) {
+			if (registry.contains((GameEntity) movable)) {
+				movable.oneStepMove();
+			}
+		}
+		for (int index = scanned; index < registry.getMovableCount(); index++) {
+			GameMovable movable = registry.getMovable(index);
+			if (movable != null) {
+				movable.oneStepMove();
 			}
 		}
+
+		Arrays.fill(batchMovables, 0, count, null);
+		Arrays.fill(batchSpeedVectors, 0, count, null);
+		Arrays.fill(retryMovables, 0, nbRetries, null);
+		Arrays.fill(retrySpeedVectors, 0, nbRetries, null);
+		otherMovables.clear();
+	}
+
+	private void ensureBatchCapacity(int count) {
+		if (batchMovables.length >= count) {
+			return;
+		}
+		int capacity = Math.max(16, batchMovables.length * 2);
+		batchMovables = Arrays.copyOf(batchMovables, capacity);
+		batchSpeedVectors = Arrays.copyOf(batchSpeedVectors, capacity);
+		batchValidated = new boolean[capacity];
+		retryMovables = new GameMovable[capacity];
+		retrySpeedVectors = new SpeedVector[capacity];
+		retryValidated = new boolean[capacity];
+		retryIndexes = new int[capacity];
+	}
+
+	/**
+	 * By default, each movable asks its driver to validate its move, after the
+	 * previous movables have moved. If <code>batchedMoves</code> is true and
+	 * the move blocker checker is a {@link BatchMoveBlockerChecker}, the moves
+	 * are validated all at once, see {@link #allOneStepMovesBatched()}.
+	 */
+	public void setBatchedMoves(boolean batchedMoves) {
+		this.batchedMoves = batchedMoves;
 	}
 
 	@Override
 	public void processAllOverlaps() {
-		getOverlapProcessor().processOverlapsAll();
+		beginPhase();
+		try {
+			getOverlapProcessor().processOverlapsAll();
+		} finally {
+			endPhase();
+		}
 	}
 
 	protected MoveBlockerChecker getMoveBlockerChecker() {
@@ -74,14 +421,29 @@ public class GameUniverseDefaultImpl implements GameUniverse {
 
 	@Override
 	public synchronized void removeAllGameEntities() {
-		for (GameEntity gameEntity : gameEntities)
+		for (GameEntity gameEntity : gameEntities) {
 			removeOverlappableAndBlockerGameEntity(gameEntity);
+			for (GameUniverseListener listener : listeners) {
+				listener.gameEntityRemoved(gameEntity);
+			}
+		}
 		this.gameEntities.clear();
+		registry.clear();
+		pendingAdditions.clear();
+		pendingAdded.clear();
+		pendingRemovals.clear();
 	}
 
 	@Override
 	public synchronized void removeGameEntities(Collection<GameEntity> gameEntities) {
-		for (GameEntity gameEntity : gameEntities)
-			removeGameEntity(gameEntity);
+		if (deferringPhases > 0) {
+			for (GameEntity gameEntity : gameEntities)
+				removeGameEntity(gameEntity);
+			return;
+		}
+		Set<GameEntity> removed = Collections
+				.newSetFromMap(new IdentityHashMap<GameEntity, Boolean>());
+		removed.addAll(gameEntities);
+		removeGameEntitiesAtOnce(removed);
 	}
 }
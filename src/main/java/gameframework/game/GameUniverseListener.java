@@ -0,0 +1,13 @@
+package gameframework.game;
+
+/**
+ * Notified by {@link GameUniverseDefaultImpl} when an entity is really added
+ * to or removed from the universe, that is at the end of the phase when the
+ * changes are deferred. Called by the thread changing the universe, while it
+ * holds the lock of the universe.
+ */
+public interface GameUniverseListener {
+	public void gameEntityAdded(GameEntity gameEntity);
+
+	public void gameEntityRemoved(GameEntity gameEntity);
+}
@@ -0,0 +1,167 @@
+package gameframework.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+/**
+ * {@link GameMetricsTracer} emitting Java Flight Recorder events, so that the
+ * operations of the game loop appear in a recording next to the garbage
+ * collections and the other events of the JVM. An event begins when its
+ * operation starts and is committed when it ends, so its duration is the one
+ * of the operation.
+ *
+ * The events are disabled unless the recording settings enable them by name,
+ * such as <code>gameframework.Tick#enabled=true</code>. While no recording
+ * runs, starting a span only reads a flag: no event is built and no clock is
+ * read.
+ *
+ * Requires a JVM providing the <code>jdk.jfr</code> module: this class is only
+ * loaded when the tracer is created.
+ */
+public class FlightRecorderMetricsTracer implements GameMetricsTracer {
+
+	/* True while at least one recording runs */
+	private static volatile boolean recording = false;
+
+	static {
+		FlightRecorder.addListener(new FlightRecorderListener() {
+
+			@Override
+			public void recordingStateChanged(Recording changed) {
+				updateRecording();
+			}
+		});
+		updateRecording();
+	}
+
+	private static synchronized void updateRecording() {
+		boolean running = false;
+		if (FlightRecorder.isInitialized()) {
+			for (Recording r : FlightRecorder.getFlightRecorder()
+					.getRecordings()) {
+				running |= r.getState() == RecordingState.RUNNING;
+			}
+		}
+		recording = running;
+	}
+
+	@Override
+	public Object started(Span span) {
+		if (!recording) {
+			return null;
+		}
+		GameEvent event;
+		switch (span) {
+		case TICK:
+			event = new TickEvent();
+			break;
+		case OVERLAPS:
+			event = new OverlapsEvent();
+			break;
+		case MOVE_VALIDATION:
+			event = new MoveValidationEvent();
+			break;
+		default:
+			event = new RuleDispatchEvent();
+			break;
+		}
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	@Override
+	public void ended(Object started, long entities, long found) {
+		GameEvent event = (GameEvent) started;
+		event.end();
+		event.setCounts(entities, found);
+		event.commit();
+	}
+
+	abstract static class GameEvent extends Event {
+		abstract void setCounts(long entities, long found);
+	}
+
+	@Name("gameframework.Tick")
+	@Label("Game Tick")
+	@Description("Moves then overlaps of one game cycle")
+	@Category("Game Framework")
+	@StackTrace(false)
+	@Enabled(false)
+	static class TickEvent extends GameEvent {
+		@Label("Entities")
+		long entities;
+
+		@Override
+		void setCounts(long entities, long found) {
+			this.entities = entities;
+		}
+	}
+
+	@Name("gameframework.Overlaps")
+	@Label("Overlap Processing")
+	@Description("Overlaps found among the overlappables")
+	@Category("Game Framework")
+	@StackTrace(false)
+	@Enabled(false)
+	static class OverlapsEvent extends GameEvent {
+		@Label("Overlappables")
+		long overlappables;
+
+		@Label("Overlaps")
+		long overlaps;
+
+		@Override
+		void setCounts(long entities, long found) {
+			overlappables = entities;
+			overlaps = found;
+		}
+	}
+
+	@Name("gameframework.MoveValidation")
+	@Label("Move Validation")
+	@Description("Moves checked against the blockers at once")
+	@Category("Game Framework")
+	@StackTrace(false)
+	@Enabled(false)
+	static class MoveValidationEvent extends GameEvent {
+		@Label("Moves")
+		long moves;
+
+		@Label("Blocked Moves")
+		long blocked;
+
+		@Override
+		void setCounts(long entities, long found) {
+			moves = entities;
+			blocked = found;
+		}
+	}
+
+	@Name("gameframework.RuleDispatch")
+	@Label("Rule Dispatch")
+	@Description("Overlaps or blockers given to the rules at once")
+	@Category("Game Framework")
+	@StackTrace(false)
+	@Enabled(false)
+	static class RuleDispatchEvent extends GameEvent {
+		@Label("Pairs")
+		long pairs;
+
+		@Override
+		void setCounts(long entities, long found) {
+			pairs = entities;
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package gameframework.metrics;
+
+/**
+ * Receives the measures taken by the game loop and its components. Set it with
+ * {@link gameframework.game.GameData#setMetricsListener(GameMetricsListener)}.
+ * It is called on the game loop thread, and may be called from the threads of
+ * several games if it is shared between them: implementations must be thread
+ * safe and return quickly.
+ * 
+ * @see GameMetricsRecorder
+ */
+public interface GameMetricsListener {
+
+	/**
+	 * The parts of a game cycle
+	 */
+	public enum Phase {
+		/** Painting the board, or publishing a snapshot of the universe */
+		PAINT,
+		/** Moving the entities, including the move validations */
+		MOVES,
+		/** Computing the overlaps and applying their rules */
+		OVERLAPS,
+		/** Moves then overlaps */
+		TICK
+	}
+
+	/**
+	 * What is counted during a game cycle
+	 */
+	public enum Counter {
+		/** Overlaps given to the overlap rules */
+		OVERLAPS_FOUND,
+		/** Moves checked against the blockers */
+		BLOCKER_CHECKS,
+		/** Overlap and blocker rules invoked */
+		RULE_DISPATCHES
+	}
+
+	/**
+	 * @param nanos
+	 *            the duration of one occurrence of the phase
+	 */
+	public void phaseTimed(Phase phase, long nanos);
+
+	/**
+	 * @param amount
+	 *            to add to the counter
+	 */
+	public void counted(Counter counter, long amount);
+}
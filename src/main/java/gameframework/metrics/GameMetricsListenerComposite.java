@@ -0,0 +1,36 @@
+package gameframework.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Forwards the measures to several listeners, for instance to a
+ * {@link GameMetricsRecorder} and to a listener logging the slow ticks, as
+ * {@link gameframework.game.GameData} holds a single listener. Listeners
+ * may be added or removed while the game runs.
+ */
+public class GameMetricsListenerComposite implements GameMetricsListener {
+	protected List<GameMetricsListener> listeners = new CopyOnWriteArrayList<GameMetricsListener>();
+
+	public void add(GameMetricsListener listener) {
+		listeners.add(listener);
+	}
+
+	public void remove(GameMetricsListener listener) {
+		listeners.remove(listener);
+	}
+
+	@Override
+	public void phaseTimed(Phase phase, long nanos) {
+		for (GameMetricsListener listener : listeners) {
+			listener.phaseTimed(phase, nanos);
+		}
+	}
+
+	@Override
+	public void counted(Counter counter, long amount) {
+		for (GameMetricsListener listener : listeners) {
+			listener.counted(counter, amount);
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package gameframework.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link GameMetricsListener} keeping a {@link Histogram} of the durations of
+ * each phase and the total of each counter, to be read while the game runs.
+ */
+public class GameMetricsRecorder implements GameMetricsListener {
+
+	protected final Map<Phase, Histogram> histograms = new EnumMap<Phase, Histogram>(
+			Phase.class);
+	protected final Map<Counter, AtomicLong> counters = new EnumMap<Counter, AtomicLong>(
+			Counter.class);
+
+	public GameMetricsRecorder() {
+		for (Phase phase : Phase.values()) {
+			histograms.put(phase, new Histogram());
+		}
+		for (Counter counter : Counter.values()) {
+			counters.put(counter, new AtomicLong());
+		}
+	}
+
+	@Override
+	public void phaseTimed(Phase phase, long nanos) {
+		histograms.get(phase).record(nanos);
+	}
+
+	@Override
+	public void counted(Counter counter, long amount) {
+		counters.get(counter).addAndGet(amount);
+	}
+
+	/**
+	 * @return the durations of the phase, in nanoseconds
+	 */
+	public Histogram getHistogram(Phase phase) {
+		return histograms.get(phase);
+	}
+
+	public long getCount(Counter counter) {
+		return counters.get(counter).get();
+	}
+
+	public void reset() {
+		for (Histogram histogram : histograms.values()) {
+			histogram.reset();
+		}
+		for (AtomicLong counter : counters.values()) {
+			counter.set(0);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder();
+		for (Map.Entry<Phase, Histogram> entry : histograms.entrySet()) {
+			result.append(entry.getKey()).append(": ")
+					.append(entry.getValue()).append('\n');
+		}
+		for (Map.Entry<Counter, AtomicLong> entry : counters.entrySet()) {
+			result.append(entry.getKey()).append(": ")
+					.append(entry.getValue()).append('\n');
+		}
+		return result.toString();
+	}
+}
@@ -0,0 +1,45 @@
+package gameframework.metrics;
+
+/**
+ * Told when the operations of the game loop start and end, so that it can
+ * measure them itself, for instance as the events of a Java Flight Recorder.
+ * Set it with
+ * {@link gameframework.game.GameData#setMetricsTracer(GameMetricsTracer)}.
+ * Like a {@link GameMetricsListener}, it must be thread safe and return
+ * quickly, and even more so when it does not trace the operation.
+ * 
+ * @see FlightRecorderMetricsTracer
+ */
+public interface GameMetricsTracer {
+
+	/**
+	 * The operations traced
+	 */
+	public enum Span {
+		/** Moves then overlaps of one game cycle, on the universe entities */
+		TICK,
+		/** Overlaps found by the overlap processor among the overlappables */
+		OVERLAPS,
+		/** Moves validated by the move blocker checker, found blocked or not */
+		MOVE_VALIDATION,
+		/** Overlaps or blockers given to a rules applier */
+		RULE_DISPATCH
+	}
+
+	/**
+	 * @return the value to give to {@link #ended(Object, long, long)}, or null
+	 *         if the span is not traced, in which case it need not be ended
+	 */
+	public Object started(Span span);
+
+	/**
+	 * @param started
+	 *            the value returned when the span started
+	 * @param entities
+	 *            the number of entities the operation was run on
+	 * @param found
+	 *            the number of overlaps found or of moves blocked, 0 for the
+	 *            other spans
+	 */
+	public void ended(Object started, long entities, long found);
+}
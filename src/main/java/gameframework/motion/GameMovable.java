@@ -9,6 +9,10 @@ public abstract class GameMovable implements ObjectWithBoundedBox {
 	protected Point position = new Point();
 	protected SpeedVector speedVector = SpeedVector.createNullVector();
 
+	/* Set by the store while the movable is in it */
+	GameMovableStore store;
+	int storeIndex = -1;
+
 	public GameMovable(){
 		this(new GameMovableDriverDefaultImpl());
 	}
@@ -41,8 +45,29 @@ public abstract class GameMovable implements ObjectWithBoundedBox {
 		return moveDriver;
 	}
 
+	/**
+	 * @return the store holding a copy of the geometry of the movable, or null
+	 * @see #getStoreIndex()
+	 */
+	public GameMovableStore getStore() {
+		return store;
+	}
+
+	/**
+	 * @return the index of the movable in its store, or -1
+	 */
+	public int getStoreIndex() {
+		return storeIndex;
+	}
+
 	public void oneStepMove() {
-		SpeedVector m = moveDriver.getSpeedVector(this);
+		oneStepMove(moveDriver.getSpeedVector(this));
+	}
+
+	/**
+	 * Moves along <code>m</code>, which has already been validated
+	 */
+	public void oneStepMove(SpeedVector m) {
 		speedVector.setDirection(m.getDirection());
 		speedVector.setSpeed(m.getSpeed());
 		position.translate((int) speedVector.getDirection().getX()
@@ -22,6 +22,14 @@ public class GameMovableDriverDefaultImpl implements GameMovableDriver {
 		moveBlockerChecker = obst;
 	}
 
+	public MoveStrategy getStrategy() {
+		return moveStrategy;
+	}
+
+	public MoveBlockerChecker getMoveBlockerChecker() {
+		return moveBlockerChecker;
+	}
+
 	@Override
 	public SpeedVector getSpeedVector(GameMovable movable) {
 		SpeedVector possibleSpeedVector;
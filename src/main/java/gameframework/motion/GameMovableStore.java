@@ -0,0 +1,235 @@
+package gameframework.motion;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * The movables of a universe, with their positions, sizes and last moves
+ * copied into parallel arrays indexed by a dense index. A movable knows its
+ * index while it is stored, see {@link GameMovable#getStore()}.
+ *
+ * The arrays are a copy, refreshed by {@link #updateAll()} in a single pass,
+ * usually once per tick before the overlaps are computed: the geometry of the
+ * movables is then read from the arrays rather than recomputed from their
+ * bounding boxes and speed vectors for every pair of entities.
+ *
+ * Removing a movable moves the last one to its index. While the movables are
+ * scanned, between {@link #beginScan()} and {@link #endScan()}, removed
+ * movables only leave a hole, filled when the scan ends.
+ */
+public class GameMovableStore {
+	private static final int INITIAL_CAPACITY = 16;
+
+	/** Set while the movable is stored */
+	public static final byte ALIVE = 1;
+
+	protected GameMovable[] movables = new GameMovable[INITIAL_CAPACITY];
+	protected int[] x = new int[INITIAL_CAPACITY];
+	protected int[] y = new int[INITIAL_CAPACITY];
+	protected int[] width = new int[INITIAL_CAPACITY];
+	protected int[] height = new int[INITIAL_CAPACITY];
+	protected int[] moveX = new int[INITIAL_CAPACITY];
+	protected int[] moveY = new int[INITIAL_CAPACITY];
+	protected byte[] flags = new byte[INITIAL_CAPACITY];
+	protected int size = 0;
+
+	/* Number of nested scans, and holes left by removals during them */
+	private int scans = 0;
+	private int holes = 0;
+
+	/**
+	 * Stores the movable at the end of the arrays
+	 * 
+	 * @throws IllegalArgumentException
+	 *             if the movable is already in a store
+	 */
+	public void add(GameMovable movable) {
+		if (movable.store != null) {
+			throw new IllegalArgumentException("Movable already stored: "
+					+ movable);
+		}
+		ensureCapacity(size + 1);
+		movables[size] = movable;
+		flags[size] = ALIVE;
+		movable.store = this;
+		movable.storeIndex = size;
+		update(size);
+		size++;
+	}
+
+	/**
+	 * Does nothing if the movable is not in this store
+	 */
+	public void remove(GameMovable movable) {
+		if (movable.store != this) {
+			return;
+		}
+		int index = movable.storeIndex;
+		movable.store = null;
+		movable.storeIndex = -1;
+		if (scans > 0) {
+			movables[index] = null;
+			flags[index] = 0;
+			holes++;
+		} else {
+			removeAt(index);
+		}
+	}
+
+	public void removeAll() {
+		for (int i = 0; i < size; i++) {
+			if (movables[i] != null) {
+				movables[i].store = null;
+				movables[i].storeIndex = -1;
+			}
+		}
+		Arrays.fill(movables, 0, size, null);
+		Arrays.fill(flags, 0, size, (byte) 0);
+		if (scans > 0) {
+			holes = size;
+		} else {
+			size = 0;
+		}
+	}
+
+	/**
+	 * @return the number of indexes in use, including the holes left by a
+	 *         scan in progress
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the movable at the index, or null if it was removed during the
+	 *         current scan
+	 */
+	public GameMovable get(int index) {
+		return movables[index];
+	}
+
+	public boolean isAlive(int index) {
+		return (flags[index] & ALIVE) != 0;
+	}
+
+	/**
+	 * Removals are delayed until the matching {@link #endScan()}, so that the
+	 * indexes don't change while the movables are visited
+	 */
+	public void beginScan() {
+		scans++;
+	}
+
+	public void endScan() {
+		if (--scans == 0 && holes > 0) {
+			for (int i = size - 1; i >= 0; i--) {
+				if (movables[i] == null) {
+					removeAt(i);
+				}
+			}
+			holes = 0;
+		}
+	}
+
+	/**
+	 * Copies the geometry of every movable into the arrays
+	 */
+	public void updateAll() {
+		for (int i = 0; i < size; i++) {
+			if (movables[i] != null) {
+				update(i);
+			}
+		}
+	}
+
+	/**
+	 * Copies the position, the size of the bounding box and the current speed
+	 * vector of the movable at the index into the arrays
+	 */
+	public void update(int index) {
+		GameMovable movable = movables[index];
+		Rectangle boundingBox = movable.getBoundingBox();
+		Point position = movable.getPosition();
+		SpeedVector speedVector = movable.getSpeedVector();
+		int speed = speedVector.getSpeed();
+		x[index] = position.x;
+		y[index] = position.y;
+		width[index] = boundingBox.width;
+		height[index] = boundingBox.height;
+		moveX[index] = speedVector.getDirection().x * speed;
+		moveY[index] = speedVector.getDirection().y * speed;
+	}
+
+	/**
+	 * Sets <code>result</code> to the zone covered by the movable at the index
+	 * during its last move, as copied by the last update
+	 * 
+	 * @see SweptBox#setLastMove(GameMovable)
+	 */
+	public SweptBox getLastMove(int index, SweptBox result) {
+		return result.set(x[index], y[index], width[index], height[index],
+				-moveX[index], -moveY[index]);
+	}
+
+	public int getX(int index) {
+		return x[index];
+	}
+
+	public int getY(int index) {
+		return y[index];
+	}
+
+	public int getWidth(int index) {
+		return width[index];
+	}
+
+	public int getHeight(int index) {
+		return height[index];
+	}
+
+	public int getMoveX(int index) {
+		return moveX[index];
+	}
+
+	public int getMoveY(int index) {
+		return moveY[index];
+	}
+
+	/*
+	 * Moves the last movable to the index
+	 */
+	private void removeAt(int index) {
+		int last = --size;
+		if (index != last) {
+			movables[index] = movables[last];
+			x[index] = x[last];
+			y[index] = y[last];
+			width[index] = width[last];
+			height[index] = height[last];
+			moveX[index] = moveX[last];
+			moveY[index] = moveY[last];
+			flags[index] = flags[last];
+			if (movables[index] != null) {
+				movables[index].storeIndex = index;
+			}
+		}
+		movables[last] = null;
+		flags[last] = 0;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (movables.length >= capacity) {
+			return;
+		}
+		capacity = Math.max(capacity, movables.length * 2);
+		movables = Arrays.copyOf(movables, capacity);
+		x = Arrays.copyOf(x, capacity);
+		y = Arrays.copyOf(y, capacity);
+		width = Arrays.copyOf(width, capacity);
+		height = Arrays.copyOf(height, capacity);
+		moveX = Arrays.copyOf(moveX, capacity);
+		moveY = Arrays.copyOf(moveY, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+	}
+}
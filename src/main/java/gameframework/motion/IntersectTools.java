@@ -33,72 +33,130 @@ public class IntersectTools {
 		// We need the bounding box of the movable
 		int x1 = (int) movable.getPosition().getX();
 		int y1 = (int) movable.getPosition().getY();
-		int x2 = x1 + (int) movable.getBoundingBox().getWidth();
-		int y2 = y1 + (int) movable.getBoundingBox().getHeight();
-
-		// We normalize the computation for negative speeds
-		if (v < 0) {
-			dX = -dX;
-			dY = -dY;
-			v = -v;
-		}
+		Rectangle boundingBox = movable.getBoundingBox();
+
+		return getIntersectShape(x1, y1, boundingBox.width,
+				boundingBox.height, dX * v, dY * v);
+	}
 
-		// We build the intersection polygon now
-		// As usual we need to consider the 8 direction to build different kind
-		// of shape
-		Shape intersectShape;
+	/**
+	 * Return a polygonal zone (with max 6 sides) containing the whole path of
+	 * a box moving by <code>(moveX, moveY)</code>.
+	 * 
+	 * @return Either a {@link java.awt.Rectangle rectangle} or an
+	 *         {@link java.awt.Polygon hexagon}.
+	 */
+	public static Shape getIntersectShape(int x, int y, int width,
+			int height, int moveX, int moveY) {
+		int x1 = x, y1 = y, x2 = x + width, y2 = y + height;
 
 		// If X or Y is not on axis
-		if ((dX != 0) && (dY != 0)) {
-			intersectShape = new Polygon();
-
-			// If it is not in the first quarter of the plane
-			if (!((dX < 0) && (dY > 0))) {
-				addPointInIntersectShape(x1, y1, x2 + dX * v, y2 + dY * v, (Polygon)intersectShape);
-			}
-			// If it is not in the fourth quarter of the plane
-			if (!((dX > 0) && (dY < 0))) {
-				addPointInIntersectShape(x2, y2, x1 + dX * v, y1 + dY * v, (Polygon)intersectShape);
-			}
-			// If it is not in the third quarter of the plane
-			if (!((dX < 0) && (dY < 0))) {
-				addPointInIntersectShape(x1, y2, x2 + dX * v, y1 + dY * v, (Polygon)intersectShape);
-			}
-			// If it is not in the second quarter of the plane
-			if (!((dX > 0) && (dY > 0))) {
-				addPointInIntersectShape(x2, y1, x1 + dX * v, y2 + dY * v, (Polygon)intersectShape);
-			}
+		if ((moveX != 0) && (moveY != 0)) {
+			// The hexagon goes along the 3 back corners of the box before the
+			// move, then along the 3 front corners of the box after the move
+			int backX = moveX > 0 ? x1 : x2;
+			int backY = moveY > 0 ? y1 : y2;
+			int frontX = moveX > 0 ? x2 : x1;
+			int frontY = moveY > 0 ? y2 : y1;
+
+			Polygon intersectShape = new Polygon();
+			intersectShape.addPoint(frontX, backY);
+			intersectShape.addPoint(frontX + moveX, backY + moveY);
+			intersectShape.addPoint(frontX + moveX, frontY + moveY);
+			intersectShape.addPoint(backX + moveX, frontY + moveY);
+			intersectShape.addPoint(backX, frontY);
+			intersectShape.addPoint(backX, backY);
 			return intersectShape;
 		} else {
 			// And now the axis
-			int a = x1, b = y1, c = x2, d = y2;
-			if ((dX == 0) && (dY > 0)) {
-				c = x2 - x1;
-				d = y2 - y1 + dY * v;
-			} else if (dY < 0) { // we know that dX == 0
-				b = y1 + dY * v;
-				c = x2 - x1;
-				d = y2 - (y1 + dY * v);
-			} else if (dX > 0) { // we know that dY == 0
-				c = x2 - x1 + dX * v;
-				d = y2 - y1;
-			} else if (dX < 0) { // we know that dY == 0
-				a = x1 + dX * v;
-				c = x2 - (x1 + dX * v);
-				d = y2 - y1;
-			} else {
-				c = x2 - x1;
-				d = y2 - y1;
-			}
-			intersectShape = new Rectangle (a,b,c,d);
-			return intersectShape;
+			return new Rectangle(Math.min(x1, x1 + moveX), Math.min(y1, y1
+					+ moveY), width + Math.abs(moveX), height
+					+ Math.abs(moveY));
+		}
+	}
+
+	/**
+	 * Checks whether the zones covered by two boxes moving along straight
+	 * lines overlap, without building any shape. Each zone is the 6-sided hull
+	 * computed by {@link #getIntersectShape(GameMovable, SpeedVector)}: the
+	 * convex hull of the box before and after its move. Zones only touching by
+	 * a side don't overlap.
+	 * 
+	 * Both zones being convex, they overlap if and only if their projections
+	 * overlap on the x and y axes and on the normals of both moves.
+	 * 
+	 * @param x1
+	 *            left side of the first box before its move
+	 * @param moveX1
+	 *            horizontal move of the first box, that is the x direction
+	 *            times the speed
+	 */
+	public static boolean sweptBoxesIntersect(int x1, int y1, int width1,
+			int height1, int moveX1, int moveY1, int x2, int y2, int width2,
+			int height2, int moveX2, int moveY2) {
+		if (isEmptyHull(width1, height1, moveX1, moveY1)
+				|| isEmptyHull(width2, height2, moveX2, moveY2)) {
+			return false;
 		}
+		return projectionsOverlap(1, 0, x1, y1, width1, height1, moveX1,
+				moveY1, x2, y2, width2, height2, moveX2, moveY2)
+				&& projectionsOverlap(0, 1, x1, y1, width1, height1, moveX1,
+						moveY1, x2, y2, width2, height2, moveX2, moveY2)
+				&& (moveX1 == 0 || moveY1 == 0 || projectionsOverlap(moveY1,
+						-moveX1, x1, y1, width1, height1, moveX1, moveY1, x2,
+						y2, width2, height2, moveX2, moveY2))
+				&& (moveX2 == 0 || moveY2 == 0 || projectionsOverlap(moveY2,
+						-moveX2, x1, y1, width1, height1, moveX1, moveY1, x2,
+						y2, width2, height2, moveX2, moveY2));
+	}
 
+	/**
+	 * Checks whether the zone covered by a box moving along a straight line
+	 * overlaps a rectangle. See
+	 * {@link #sweptBoxesIntersect(int, int, int, int, int, int, int, int, int, int, int, int)}
+	 */
+	public static boolean sweptBoxIntersects(int x, int y, int width,
+			int height, int moveX, int moveY, Rectangle rectangle) {
+		return sweptBoxesIntersect(x, y, width, height, moveX, moveY,
+				rectangle.x, rectangle.y, rectangle.width, rectangle.height, 0,
+				0);
 	}
-	
-	protected static void addPointInIntersectShape(int x1, int y1, int x2, int y2, Polygon intersectShape) {
-		((Polygon) intersectShape).addPoint(x1, y1);
-		((Polygon) intersectShape).addPoint(x2, y2);
+
+	/**
+	 * A box of no area covers no area unless it moves across its flat side
+	 */
+	private static boolean isEmptyHull(int width, int height, int moveX,
+			int moveY) {
+		if (width < 0 || height < 0) {
+			return true;
+		}
+		return (width == 0 || height == 0)
+				&& !(width == 0 && height > 0 && moveX != 0)
+				&& !(height == 0 && width > 0 && moveY != 0);
+	}
+
+	private static boolean projectionsOverlap(long axisX, long axisY, int x1,
+			int y1, int width1, int height1, int moveX1, int moveY1, int x2,
+			int y2, int width2, int height2, int moveX2, int moveY2) {
+		long min1 = projectionMin(axisX, axisY, x1, y1, width1, height1, moveX1, moveY1);
+		long max1 = projectionMax(axisX, axisY, x1, y1, width1, height1, moveX1, moveY1);
+		long min2 = projectionMin(axisX, axisY, x2, y2, width2, height2, moveX2, moveY2);
+		long max2 = projectionMax(axisX, axisY, x2, y2, width2, height2, moveX2, moveY2);
+		return min1 < max2 && min2 < max1;
+	}
+
+	private static long projectionMin(long axisX, long axisY, int x, int y,
+			int width, int height, int moveX, int moveY) {
+		return Math.min(axisX * x, axisX * (x + width))
+				+ Math.min(axisY * y, axisY * (y + height))
+				+ Math.min(0, axisX * moveX + axisY * moveY);
+	}
+
+	private static long projectionMax(long axisX, long axisY, int x, int y,
+			int width, int height, int moveX, int moveY) {
+		return Math.max(axisX * x, axisX * (x + width))
+				+ Math.max(axisY * y, axisY * (y + height))
+				+ Math.max(0, axisX * moveX + axisY * moveY);
 	}
 
 }
@@ -0,0 +1,375 @@
+package gameframework.motion;
+
+import gameframework.motion.blocking.BlockerRule;
+import gameframework.motion.blocking.MoveBlocker;
+import gameframework.motion.blocking.MoveBlockerRulesApplierDefaultImpl;
+import gameframework.motion.overlapping.OverlapRule;
+import gameframework.motion.overlapping.OverlapRulesApplierDefaultImpl;
+import gameframework.motion.overlapping.Overlappable;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+/**
+ * Generates the dispatchers of the methods annotated with {@link OverlapRule}
+ * and {@link BlockerRule}. For each class declaring such methods, a subclass
+ * named after it with the <code>Dispatcher</code> suffix is generated. It
+ * selects the rule with <code>instanceof</code> tests, from the most specific
+ * parameters to the least specific ones, and calls it directly so that the
+ * calls can be inlined.
+ *
+ * The processor is registered as a service by the framework jar with the
+ * <code>processor</code> classifier: it runs when a game is compiled with this
+ * jar as a <code>provided</code> dependency, next to the framework jar.
+ */
+public class RuleDispatcherProcessor extends AbstractProcessor {
+
+	private static final String SUFFIX = "Dispatcher";
+
+	@Override
+	public Set<String> getSupportedAnnotationTypes() {
+		return new HashSet<String>(Arrays.asList(
+				OverlapRule.class.getCanonicalName(),
+				BlockerRule.class.getCanonicalName()));
+	}
+
+	@Override
+	public SourceVersion getSupportedSourceVersion() {
+		return SourceVersion.latestSupported();
+	}
+
+	@Override
+	public boolean process(Set<? extends TypeElement> annotations,
+			RoundEnvironment roundEnv) {
+		Map<TypeElement, List<ExecutableElement>> overlapRules = collectRules(
+				roundEnv, OverlapRule.class);
+		Map<TypeElement, List<ExecutableElement>> blockerRules = collectRules(
+				roundEnv, BlockerRule.class);
+		for (Map.Entry<TypeElement, List<ExecutableElement>> entry : overlapRules
+				.entrySet()) {
+			generateDispatcher(entry.getKey(), entry.getValue(), true);
+		}
+		for (Map.Entry<TypeElement, List<ExecutableElement>> entry : blockerRules
+				.entrySet()) {
+			generateDispatcher(entry.getKey(), entry.getValue(), false);
+		}
+		return true;
+	}
+
+	private Map<TypeElement, List<ExecutableElement>> collectRules(
+			RoundEnvironment roundEnv,
+			Class<? extends java.lang.annotation.Annotation> annotation) {
+		Map<TypeElement, List<ExecutableElement>> rules = new LinkedHashMap<TypeElement, List<ExecutableElement>>();
+		for (ExecutableElement method : ElementFilter.methodsIn(roundEnv
+				.getElementsAnnotatedWith(annotation))) {
+			TypeElement type = (TypeElement) method.getEnclosingElement();
+			List<ExecutableElement> methods = rules.get(type);
+			if (methods == null) {
+				methods = new ArrayList<ExecutableElement>();
+				rules.put(type, methods);
+			}
+			methods.add(method);
+		}
+		return rules;
+	}
+
+	private void generateDispatcher(TypeElement type,
+			List<ExecutableElement> rules, boolean overlap) {
+		Class<?> applierClass = overlap ? OverlapRulesApplierDefaultImpl.class
+				: MoveBlockerRulesApplierDefaultImpl.class;
+		Class<?> firstClass = overlap ? Overlappable.class : GameMovable.class;
+		Class<?> secondClass = overlap ? Overlappable.class : MoveBlocker.class;
+		if (!checkType(type, applierClass)) {
+			return;
+		}
+		boolean valid = true;
+		for (ExecutableElement rule : rules) {
+			valid &= checkRule(rule, firstClass, secondClass, overlap);
+		}
+		if (!valid) {
+			return;
+		}
+
+		String packageName = processingEnv.getElementUtils()
+				.getPackageOf(type).getQualifiedName().toString();
+		String dispatcherName = flatName(type) + SUFFIX;
+		try {
+			JavaFileObject file = processingEnv.getFiler().createSourceFile(
+					packageName.isEmpty() ? dispatcherName : packageName + "."
+							+ dispatcherName, type);
+			PrintWriter out = new PrintWriter(file.openWriter());
+			try {
+				writeDispatcher(out, packageName, dispatcherName, type,
+						sortBySpecificity(rules), overlap);
+			} finally {
+				out.close();
+			}
+		} catch (IOException e) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"Can't generate " + dispatcherName + ": " + e.getMessage(),
+					type);
+		}
+	}
+
+	private boolean checkType(TypeElement type, Class<?> applierClass) {
+		String error = null;
+		if (!isSubtype(type.asType(), applierClass)) {
+			error = "must extend " + applierClass.getSimpleName();
+		} else if (type.getModifiers().contains(Modifier.FINAL)
+				|| type.getModifiers().contains(Modifier.PRIVATE)
+				|| type.getModifiers().contains(Modifier.ABSTRACT)) {
+			error = "must not be final, private or abstract";
+		} else if (type.getNestingKind() != NestingKind.TOP_LEVEL
+				&& (type.getNestingKind() != NestingKind.MEMBER || !type
+						.getModifiers().contains(Modifier.STATIC))) {
+			error = "must be a top level or a static nested class";
+		} else if (!type.getTypeParameters().isEmpty()) {
+			error = "must not be generic";
+		}
+		if (error != null) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"A class declaring rules " + error, type);
+		}
+		return error == null;
+	}
+
+	private boolean checkRule(ExecutableElement rule, Class<?> firstClass,
+			Class<?> secondClass, boolean overlap) {
+		String error = null;
+		List<? extends VariableElement> parameters = rule.getParameters();
+		if (rule.getModifiers().contains(Modifier.PRIVATE)
+				|| rule.getModifiers().contains(Modifier.STATIC)) {
+			error = "must not be private or static";
+		} else if (parameters.size() != 2) {
+			error = "must have two parameters";
+		} else if (!isCastable(parameters.get(0).asType(), firstClass)
+				|| !isCastable(parameters.get(1).asType(), secondClass)) {
+			error = "must take a " + firstClass.getSimpleName() + " and a "
+					+ secondClass.getSimpleName();
+		} else if (overlap) {
+			for (TypeMirror thrown : rule.getThrownTypes()) {
+				if (!isSubtype(thrown, RuntimeException.class)
+						&& !isSubtype(thrown, Error.class)) {
+					error = "must not throw checked exceptions";
+				}
+			}
+		}
+		if (error != null) {
+			processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+					"A rule " + error, rule);
+		}
+		return error == null;
+	}
+
+	/**
+	 * Orders the rules so that a rule comes before every rule whose
+	 * parameters are supertypes of its own. Rules that can't be compared keep
+	 * their declaration order.
+	 */
+	private List<ExecutableElement> sortBySpecificity(
+			List<ExecutableElement> rules) {
+		List<ExecutableElement> remaining = new ArrayList<ExecutableElement>(
+				rules);
+		List<ExecutableElement> sorted = new ArrayList<ExecutableElement>();
+		while (!remaining.isEmpty()) {
+			ExecutableElement next = remaining.get(0);
+			for (ExecutableElement rule : remaining) {
+				if (isMoreSpecific(rule, next)) {
+					next = rule;
+				}
+			}
+			remaining.remove(next);
+			sorted.add(next);
+		}
+		return sorted;
+	}
+
+	private boolean isMoreSpecific(ExecutableElement rule,
+			ExecutableElement other) {
+		Types types = processingEnv.getTypeUtils();
+		boolean moreSpecific = false;
+		for (int i = 0; i < 2; i++) {
+			TypeMirror type = parameterType(rule, i);
+			TypeMirror otherType = parameterType(other, i);
+			if (!types.isSubtype(type, otherType)) {
+				return false;
+			}
+			moreSpecific |= !types.isSameType(type, otherType);
+		}
+		return moreSpecific;
+	}
+
+	private void writeDispatcher(PrintWriter out, String packageName,
+			String dispatcherName, TypeElement type,
+			List<ExecutableElement> rules, boolean overlap) {
+		String typeName = type.getQualifiedName().toString();
+		if (!packageName.isEmpty()) {
+			out.println("package " + packageName + ";");
+			out.println();
+		}
+		out.println("/**");
+		out.println(" * Dispatcher of the rules of {@link " + typeName
+				+ "}, generated by");
+		out.println(" * {@link " + getClass().getName() + "}");
+		out.println(" */");
+		out.println("public class " + dispatcherName + " extends " + typeName
+				+ " {");
+		writeConstructors(out, dispatcherName, type);
+		if (overlap) {
+			writeOverlapDispatch(out, rules);
+		} else {
+			writeBlockerDispatch(out, rules);
+		}
+		out.println("}");
+	}
+
+	private void writeConstructors(PrintWriter out, String dispatcherName,
+			TypeElement type) {
+		for (ExecutableElement constructor : ElementFilter
+				.constructorsIn(type.getEnclosedElements())) {
+			if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+				continue;
+			}
+			StringBuilder parameters = new StringBuilder();
+			StringBuilder arguments = new StringBuilder();
+			int i = 0;
+			for (VariableElement parameter : constructor.getParameters()) {
+				if (i > 0) {
+					parameters.append(", ");
+					arguments.append(", ");
+				}
+				parameters.append(parameter.asType()).append(" p").append(i);
+				arguments.append("p").append(i);
+				i++;
+			}
+			StringBuilder thrown = new StringBuilder();
+			for (TypeMirror exception : constructor.getThrownTypes()) {
+				thrown.append(thrown.length() == 0 ? " throws " : ", ")
+						.append(exception);
+			}
+			out.println();
+			out.println("\tpublic " + dispatcherName + "(" + parameters + ")"
+					+ thrown + " {");
+			out.println("\t\tsuper(" + arguments + ");");
+			out.println("\t}");
+		}
+	}
+
+	private void writeOverlapDispatch(PrintWriter out,
+			List<ExecutableElement> rules) {
+		String overlappable = Overlappable.class.getName();
+		out.println();
+		out.println("\t@Override");
+		out.println("\tprotected void applySpecificOverlapRule("
+				+ overlappable + " e1, " + overlappable
+				+ " e2, boolean tryToReverseParameters) {");
+		writeCalls(out, "\t\t", rules, "e1", "e2", "return;");
+		out.println("\t\tif (tryToReverseParameters) {");
+		writeCalls(out, "\t\t\t", rules, "e2", "e1", "return;");
+		out.println("\t\t}");
+		out.println("\t\tsuper.applySpecificOverlapRule(e1, e2, tryToReverseParameters);");
+		out.println("\t}");
+	}
+
+	private void writeBlockerDispatch(PrintWriter out,
+			List<ExecutableElement> rules) {
+		out.println();
+		out.println("\t@Override");
+		out.println("\tprotected boolean isMoveAllowedBy("
+				+ GameMovable.class.getName() + " movable, "
+				+ MoveBlocker.class.getName() + " blocker) {");
+		out.println("\t\ttry {");
+		writeCalls(out, "\t\t\t", rules, "movable", "blocker", "return true;");
+		out.println("\t\t} catch (Exception e) {");
+		out.println("\t\t\treturn false;");
+		out.println("\t\t}");
+		out.println("\t\treturn super.isMoveAllowedBy(movable, blocker);");
+		out.println("\t}");
+	}
+
+	private void writeCalls(PrintWriter out, String indent,
+			List<ExecutableElement> rules, String first, String second,
+			String exit) {
+		for (ExecutableElement rule : rules) {
+			String type1 = parameterType(rule, 0).toString();
+			String type2 = parameterType(rule, 1).toString();
+			out.println(indent + "if (" + first + " instanceof " + type1
+					+ " && " + second + " instanceof " + type2 + ") {");
+			out.println(indent + "\truleDispatched();");
+			out.println(indent + "\t" + rule.getSimpleName() + "((" + type1
+					+ ") " + first + ", (" + type2 + ") " + second + ");");
+			out.println(indent + "\t" + exit);
+			out.println(indent + "}");
+		}
+	}
+
+	private TypeMirror parameterType(ExecutableElement rule, int index) {
+		return processingEnv.getTypeUtils().erasure(
+				rule.getParameters().get(index).asType());
+	}
+
+	/**
+	 * @return the name of the type without its package, with '_' between
+	 *         nested types
+	 */
+	private String flatName(TypeElement type) {
+		Element enclosing = type.getEnclosingElement();
+		if (!(enclosing instanceof TypeElement)) {
+			return type.getSimpleName().toString();
+		}
+		return flatName((TypeElement) enclosing) + "_" + type.getSimpleName();
+	}
+
+	private boolean isSubtype(TypeMirror type, Class<?> superClass) {
+		TypeElement superElement = processingEnv.getElementUtils()
+				.getTypeElement(superClass.getCanonicalName());
+		return superElement != null
+				&& processingEnv.getTypeUtils().isSubtype(
+						processingEnv.getTypeUtils().erasure(type),
+						superElement.asType());
+	}
+
+	/**
+	 * @return true if a reference of the target class may be cast to the type
+	 */
+	private boolean isCastable(TypeMirror type, Class<?> target) {
+		if (type.getKind() != TypeKind.DECLARED) {
+			return false;
+		}
+		Types types = processingEnv.getTypeUtils();
+		TypeMirror erasure = types.erasure(type);
+		TypeElement element = (TypeElement) types.asElement(erasure);
+		return isSubtype(erasure, target)
+				|| types.isSubtype(
+						processingEnv.getElementUtils()
+								.getTypeElement(target.getCanonicalName())
+								.asType(), erasure)
+				|| element.getKind() == ElementKind.INTERFACE
+				&& !target.isInterface() || target.isInterface()
+				&& !element.getModifiers().contains(Modifier.FINAL);
+	}
+}
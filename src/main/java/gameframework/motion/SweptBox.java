@@ -0,0 +1,116 @@
+package gameframework.motion;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Area;
+
+/**
+ * The zone covered by a box moving along a straight line, stored as plain
+ * ints so that it can be reused from one test to the next. This is the zone
+ * described by {@link IntersectTools#getIntersectShape(GameMovable, SpeedVector)},
+ * without building the shape.
+ */
+public class SweptBox {
+	protected int x, y, width, height, moveX, moveY;
+
+	public SweptBox() {
+	}
+
+	public SweptBox(int x, int y, int width, int height, int moveX, int moveY) {
+		set(x, y, width, height, moveX, moveY);
+	}
+
+	public SweptBox set(int x, int y, int width, int height, int moveX,
+			int moveY) {
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+		this.moveX = moveX;
+		this.moveY = moveY;
+		return this;
+	}
+
+	/**
+	 * Sets this box to a rectangle that doesn't move
+	 */
+	public SweptBox set(Rectangle rectangle) {
+		return set(rectangle.x, rectangle.y, rectangle.width,
+				rectangle.height, 0, 0);
+	}
+
+	/**
+	 * Sets this box to the zone covered by the movable during a move along the
+	 * speed vector
+	 */
+	public SweptBox set(GameMovable movable, SpeedVector speedVector) {
+		int speed = speedVector.getSpeed();
+		Rectangle boundingBox = movable.getBoundingBox();
+		return set((int) movable.getPosition().getX(), (int) movable
+				.getPosition().getY(), boundingBox.width, boundingBox.height,
+				(int) speedVector.getDirection().getX() * speed,
+				(int) speedVector.getDirection().getY() * speed);
+	}
+
+	/**
+	 * Sets this box to the zone covered by the movable during its last move,
+	 * that is a move along the opposite of its current speed vector
+	 */
+	public SweptBox setLastMove(GameMovable movable) {
+		set(movable, movable.getSpeedVector());
+		moveX = -moveX;
+		moveY = -moveY;
+		return this;
+	}
+
+	/**
+	 * @return <code>result</code>, set to the bounds of the covered zone
+	 */
+	public Rectangle getBounds(Rectangle result) {
+		result.setBounds(Math.min(x, x + moveX), Math.min(y, y + moveY), width
+				+ Math.abs(moveX), height + Math.abs(moveY));
+		return result;
+	}
+
+	public Rectangle getBounds() {
+		return getBounds(new Rectangle());
+	}
+
+	public Shape toShape() {
+		return IntersectTools.getIntersectShape(x, y, width, height, moveX,
+				moveY);
+	}
+
+	public boolean intersects(SweptBox other) {
+		return IntersectTools.sweptBoxesIntersect(x, y, width, height, moveX,
+				moveY, other.x, other.y, other.width, other.height,
+				other.moveX, other.moveY);
+	}
+
+	public boolean intersects(Rectangle rectangle) {
+		return IntersectTools.sweptBoxIntersects(x, y, width, height, moveX,
+				moveY, rectangle);
+	}
+
+	/**
+	 * Same as {@link #intersects(SweptBox)} but using {@link Area areas}. This
+	 * is much slower and only meant to validate the results of
+	 * {@link #intersects(SweptBox)}.
+	 */
+	public boolean intersectsUsingArea(SweptBox other) {
+		if (!getBounds().intersects(other.getBounds())) {
+			return false;
+		}
+		Area area = new Area(toShape());
+		area.intersect(new Area(other.toShape()));
+		return !area.isEmpty();
+	}
+
+	/**
+	 * Tests whether the boxes intersect, using areas if <code>exact</code>
+	 * is true
+	 */
+	public boolean intersects(SweptBox other, boolean exact) {
+		return exact ? intersectsUsingArea(other) : intersects(other);
+	}
+}
@@ -0,0 +1,24 @@
+package gameframework.motion.blocking;
+
+import gameframework.motion.GameMovable;
+import gameframework.motion.SpeedVector;
+
+/**
+ * A MoveBlockerChecker which can also validate the moves of several movables
+ * in a single call, for instance to share work between them.
+ */
+public interface BatchMoveBlockerChecker extends MoveBlockerChecker {
+	/**
+	 * Checks if several movables can move, as if
+	 * {@link #moveValidation(GameMovable, SpeedVector)} was called for each of
+	 * them before any of them moves. The arrays may be longer than
+	 * <code>count</code> so that callers can reuse them from one tick to the
+	 * next.
+	 * @param movables the movables to test
+	 * @param requestedSpeedVectors the movement each movable wishes to do
+	 * @param count the number of movables to test
+	 * @param results set to true for each movable which can move
+	 */
+	public void moveValidationAll(GameMovable[] movables,
+			SpeedVector[] requestedSpeedVectors, int count, boolean[] results);
+}
@@ -0,0 +1,15 @@
+package gameframework.motion.blocking;
+
+import java.util.Collection;
+
+/**
+ * A MoveBlockerChecker which can also remove several MoveBlockers in a single
+ * call. The universe removes them one by one from the other checkers.
+ */
+public interface BatchRemovalMoveBlockerChecker extends MoveBlockerChecker {
+	/**
+	 * Removes several MoveBlockers at once, at a lower cost than one by one.
+	 * @param blockers the MoveBlockers to remove
+	 */
+	public void removeMoveBlockers(Collection<? extends MoveBlocker> blockers);
+}
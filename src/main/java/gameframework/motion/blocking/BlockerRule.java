@@ -0,0 +1,29 @@
+package gameframework.motion.blocking;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a subclass of {@link MoveBlockerRulesApplierDefaultImpl}
+ * as a blocking rule. The method takes the movable then the blocker, may have
+ * any name, and throws an exception, usually an
+ * {@link gameframework.motion.IllegalMoveException}, to block the move.
+ *
+ * At compile time, a <code>Dispatcher</code> subclass calling the rules
+ * without reflection is generated next to the annotated class, for instance
+ * <code>PacmanBlockerRulesDispatcher</code> for
+ * <code>PacmanBlockerRules</code>. Return an instance of it from
+ * {@link gameframework.game.GameConfiguration#createMoveBlockerRulesApplier()}.
+ *
+ * The rule with the most specific parameters is called. Pairs matching no
+ * annotated rule go through {@link MoveBlockerRulesApplierDefaultImpl} as
+ * before.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface BlockerRule {
+}
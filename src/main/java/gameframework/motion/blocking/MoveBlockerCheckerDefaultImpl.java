@@ -1,12 +1,16 @@
 package gameframework.motion.blocking;
 
-import gameframework.motion.IntersectTools;
+import gameframework.metrics.GameMetricsListener;
+import gameframework.metrics.GameMetricsTracer;
 import gameframework.motion.GameMovable;
 import gameframework.motion.SpeedVector;
+import gameframework.motion.SweptBox;
 
 import java.awt.Rectangle;
-import java.awt.Shape;
-import java.awt.geom.Area;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
@@ -14,7 +18,8 @@ import java.util.concurrent.ConcurrentLinkedQueue;
  * Default implementation of the MoveBLockerChecker interface. For more informations,
  * please refer to the MoveBlockerChecker interface.
  */
-public class MoveBlockerCheckerDefaultImpl implements MoveBlockerChecker {
+public class MoveBlockerCheckerDefaultImpl implements
+		BatchMoveBlockerChecker, BatchRemovalMoveBlockerChecker {
 	/**
 	 * A queue containing all the moveBlockers to check for when verifying if a
 	 * GameMovable can move
@@ -26,6 +31,24 @@ public class MoveBlockerCheckerDefaultImpl implements MoveBlockerChecker {
 	 */
 	protected MoveBlockerRulesApplier moveBlockerRuleApplier;
 
+	/**
+	 * If true, intersections are computed using areas instead of ints
+	 * @see #setExactIntersection(boolean)
+	 */
+	protected boolean exactIntersection = false;
+
+	/**
+	 * Told about the validated moves, if not null
+	 * @see #setMetricsListener(GameMetricsListener)
+	 */
+	protected GameMetricsListener metricsListener;
+
+	/**
+	 * Told when the validations start and end, if not null
+	 * @see #setMetricsTracer(GameMetricsTracer)
+	 */
+	protected GameMetricsTracer metricsTracer;
+
 	public MoveBlockerCheckerDefaultImpl() {
 		moveBlockers = new ConcurrentLinkedQueue<MoveBlocker>();
 		this.moveBlockerRuleApplier = new MoveBlockerRulesApplierDefaultImpl();
@@ -47,6 +70,18 @@ public class MoveBlockerCheckerDefaultImpl implements MoveBlockerChecker {
 		moveBlockers.remove(p);
 	}
 
+	/**
+	 * Walks the queue once whatever the number of blockers to remove
+	 * @see gameframework.motion.blocking.BatchRemovalMoveBlockerChecker#removeMoveBlockers(java.util.Collection)
+	 */
+	@Override
+	public void removeMoveBlockers(Collection<? extends MoveBlocker> blockers) {
+		Set<MoveBlocker> removed = Collections
+				.newSetFromMap(new IdentityHashMap<MoveBlocker, Boolean>());
+		removed.addAll(blockers);
+		moveBlockers.removeAll(removed);
+	}
+
 	/**
 	 * @see gameframework.motion.blocking.MoveBlockerChecker#setMoveBlockerRules(gameframework.motion.blocking.MoveBlockerRulesApplier)
 	 */
@@ -60,30 +95,113 @@ public class MoveBlockerCheckerDefaultImpl implements MoveBlockerChecker {
 	 */
 	@Override
 	public boolean moveValidation(GameMovable m, SpeedVector mov) {
-		Shape intersectShape = IntersectTools.getIntersectShape(m, mov);
-		Vector<MoveBlocker> moveBlockersInIntersection = new Vector<MoveBlocker>();
-		Area intersectArea = new Area(intersectShape);
-		Rectangle tmpIntersec = (intersectShape.getBounds());
+		GameMetricsTracer tracer = metricsTracer;
+		Object span = tracer == null ? null : tracer
+				.started(GameMetricsTracer.Span.MOVE_VALIDATION);
+		boolean valid = validate(m, mov);
+		if (span != null) {
+			tracer.ended(span, 1, valid ? 0 : 1);
+		}
+		return valid;
+	}
+
+	private boolean validate(GameMovable m, SpeedVector mov) {
+		countChecks(1);
+		Vector<MoveBlocker> moveBlockersInIntersection = null;
+		// local so that moves can be validated by several threads
+		SweptBox movableBox = new SweptBox();
+		SweptBox blockerBox = new SweptBox();
+		Rectangle movableBounds = new Rectangle();
+		movableBox.set(m, mov);
+		movableBox.getBounds(movableBounds);
 
-		for (MoveBlocker moveBlocker : moveBlockers) {
+		for (MoveBlocker moveBlocker : getCandidates(movableBounds)) {
 			Rectangle tmpB = moveBlocker.getBoundingBox();
-			if (m != moveBlocker && tmpIntersec.intersects(tmpB)) {
-				Area tmpArea = new Area(tmpB);
-				tmpArea.intersect(intersectArea);
-				if (!tmpArea.isEmpty()) {
-					// NOTE I don't understand how this test can fail. To me,
-					// if tmpIntersec intersects with tmpB then tmpArea is not
-					// empty
-					moveBlockersInIntersection.add(moveBlocker);
+			if (m != moveBlocker && movableBounds.intersects(tmpB)
+					&& movableBox.intersects(blockerBox.set(tmpB),
+							exactIntersection)) {
+				if (moveBlockersInIntersection == null) {
+					moveBlockersInIntersection = new Vector<MoveBlocker>();
 				}
+				moveBlockersInIntersection.add(moveBlocker);
 			}
 		}
 
-		if (!moveBlockersInIntersection.isEmpty()) {
+		if (moveBlockersInIntersection != null) {
 			return moveBlockerRuleApplier.moveValidationProcessing(m,
 					moveBlockersInIntersection);
 		}
 
 		return true;
 	}
+
+	/**
+	 * @param bounds
+	 *            the bounds of the move to validate
+	 * @return the blockers which may intersect the bounds, in the order they
+	 *         are given to the rules: all of them by default
+	 */
+	protected Iterable<MoveBlocker> getCandidates(Rectangle bounds) {
+		return moveBlockers;
+	}
+
+	/**
+	 * Validates the moves one after the other
+	 * @see gameframework.motion.blocking.BatchMoveBlockerChecker#moveValidationAll(gameframework.motion.GameMovable[], gameframework.motion.SpeedVector[], int, boolean[])
+	 */
+	@Override
+	public void moveValidationAll(GameMovable[] movables,
+			SpeedVector[] requestedSpeedVectors, int count, boolean[] results) {
+		for (int i = 0; i < count; i++) {
+			results[i] = moveValidation(movables[i], requestedSpeedVectors[i]);
+		}
+	}
+
+	/**
+	 * @return the number of false results among the first ones
+	 */
+	protected static int countBlocked(boolean[] results, int count) {
+		int blocked = 0;
+		for (int i = 0; i < count; i++) {
+			if (!results[i]) {
+				blocked++;
+			}
+		}
+		return blocked;
+	}
+
+	/**
+	 * By default, intersections are computed on ints without building any
+	 * shape. If <code>exactIntersection</code> is true, the intersections are
+	 * computed using {@link java.awt.geom.Area areas} instead. This is much
+	 * slower and only meant to validate the results.
+	 */
+	public void setExactIntersection(boolean exactIntersection) {
+		this.exactIntersection = exactIntersection;
+	}
+
+	/**
+	 * Counts the validated moves as
+	 * {@link GameMetricsListener.Counter#BLOCKER_CHECKS}. Set by the
+	 * {@link gameframework.game.GameData} using the checker.
+	 */
+	public void setMetricsListener(GameMetricsListener metricsListener) {
+		this.metricsListener = metricsListener;
+	}
+
+	/**
+	 * Traces the validations as
+	 * {@link GameMetricsTracer.Span#MOVE_VALIDATION}. Set by the
+	 * {@link gameframework.game.GameData} using the checker.
+	 */
+	public void setMetricsTracer(GameMetricsTracer metricsTracer) {
+		this.metricsTracer = metricsTracer;
+	}
+
+	protected void countChecks(int moves) {
+		GameMetricsListener listener = metricsListener;
+		if (listener != null) {
+			listener.counted(GameMetricsListener.Counter.BLOCKER_CHECKS, moves);
+		}
+	}
 }
@@ -0,0 +1,280 @@
+package gameframework.motion.blocking;
+
+import gameframework.base.SpatialHashGrid;
+import gameframework.metrics.GameMetricsTracer;
+import gameframework.motion.GameMovable;
+import gameframework.motion.SpeedVector;
+import gameframework.motion.SweptBox;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * {@link MoveBlockerChecker} indexing the blockers that don't move by the
+ * cells of their bounding box. A move is only tested against the blockers
+ * whose cells are covered by the bounds of the move, and against the movable
+ * blockers, which are still kept in {@link #moveBlockers}. A blocker aligned
+ * on the grid and of the size of a cell, such as a wall of a maze, is added
+ * and removed in constant time.
+ *
+ * The blockers given to the rules are the indexed ones first, in the order
+ * they were added, then the movable ones. Blockers that don't move are
+ * expected to keep their bounding box while they are in the checker.
+ *
+ * To use it, override
+ * {@link gameframework.game.GameConfiguration#createMoveBlockerChecker()} and
+ * return <code>new MoveBlockerCheckerGridImpl(getSpriteSize())</code>.
+ */
+public class MoveBlockerCheckerGridImpl extends MoveBlockerCheckerDefaultImpl {
+
+	/**
+	 * Number of movables from which {@link #moveValidationAll} runs on several
+	 * cores, and number of movables handled by a single task
+	 */
+	public static final int PARALLEL_THRESHOLD = 64;
+
+	private static final long BATCH_INDEX_MASK = (1 << 20) - 1;
+	private static final long CELL_KEY_MASK = (1 << 21) - 1;
+
+	protected final SpatialHashGrid<MoveBlocker> nonMovableBlockers;
+
+	/* Reused between batches, indexed like the movables of the batch */
+	private SweptBox[] batchBoxes = new SweptBox[0];
+	private Rectangle[] batchBounds = new Rectangle[0];
+	private List<MoveBlocker>[] batchBlockers = newBlockerLists();
+	/* Cell key of each movable followed by its index, sorted */
+	private long[] batchOrder = new long[0];
+
+	/**
+	 * @param cellSize
+	 *            the side of the cells indexing blockers, usually
+	 *            {@link gameframework.game.GameConfiguration#getSpriteSize()}
+	 */
+	public MoveBlockerCheckerGridImpl(int cellSize) {
+		nonMovableBlockers = new SpatialHashGrid<MoveBlocker>(cellSize);
+	}
+
+	@Override
+	public void addMoveBlocker(MoveBlocker p) {
+		if (p.isMovable()) {
+			super.addMoveBlocker(p);
+		} else {
+			synchronized (nonMovableBlockers) {
+				nonMovableBlockers.insert(p, p.getBoundingBox());
+			}
+		}
+	}
+
+	@Override
+	public void removeMoveBlocker(MoveBlocker p) {
+		if (p.isMovable()) {
+			super.removeMoveBlocker(p);
+		} else {
+			synchronized (nonMovableBlockers) {
+				nonMovableBlockers.remove(p);
+			}
+		}
+	}
+
+	@Override
+	public void removeMoveBlockers(Collection<? extends MoveBlocker> blockers) {
+		List<MoveBlocker> movableBlockers = new ArrayList<MoveBlocker>();
+		synchronized (nonMovableBlockers) {
+			for (MoveBlocker p : blockers) {
+				if (p.isMovable()) {
+					movableBlockers.add(p);
+				} else {
+					nonMovableBlockers.remove(p);
+				}
+			}
+		}
+		super.removeMoveBlockers(movableBlockers);
+	}
+
+	/**
+	 * @return the indexed blockers whose cells are covered by the bounds, then
+	 *         the movable blockers
+	 */
+	@Override
+	protected Iterable<MoveBlocker> getCandidates(Rectangle bounds) {
+		List<MoveBlocker> candidates = new ArrayList<MoveBlocker>();
+		synchronized (nonMovableBlockers) {
+			nonMovableBlockers.query(bounds, candidates);
+		}
+		candidates.addAll(moveBlockers);
+		return candidates;
+	}
+
+	/**
+	 * Finds the blockers of every move first, then applies the rules to the
+	 * blocked movables in the calling thread, in the order of the arrays. The
+	 * movables are visited cell by cell so that neighbours read the same
+	 * buckets, and on several cores when there are at least
+	 * {@link #PARALLEL_THRESHOLD} of them.
+	 * @see gameframework.motion.blocking.BatchMoveBlockerChecker#moveValidationAll(gameframework.motion.GameMovable[], gameframework.motion.SpeedVector[], int, boolean[])
+	 */
+	@Override
+	public void moveValidationAll(GameMovable[] movables,
+			SpeedVector[] requestedSpeedVectors, int count, boolean[] results) {
+		GameMetricsTracer tracer = metricsTracer;
+		Object span = tracer == null ? null : tracer
+				.started(GameMetricsTracer.Span.MOVE_VALIDATION);
+		validateAll(movables, requestedSpeedVectors, count, results);
+		if (span != null) {
+			tracer.ended(span, count, countBlocked(results, count));
+		}
+	}
+
+	private void validateAll(GameMovable[] movables,
+			SpeedVector[] requestedSpeedVectors, int count, boolean[] results) {
+		countChecks(count);
+		ensureBatchCapacity(count);
+		MoveBlocker[] movableBlockers = moveBlockers
+				.toArray(new MoveBlocker[0]);
+		synchronized (nonMovableBlockers) {
+			int cellSize = nonMovableBlockers.getCellSize();
+			for (int i = 0; i < count; i++) {
+				batchBoxes[i].set(movables[i], requestedSpeedVectors[i]);
+				batchBoxes[i].getBounds(batchBounds[i]);
+				batchOrder[i] = cellKey(batchBounds[i], cellSize) << 20 | i;
+			}
+			Arrays.sort(batchOrder, 0, count);
+
+			BatchTask task = new BatchTask(movables, movableBlockers, 0, count);
+			if (count < PARALLEL_THRESHOLD) {
+				task.compute();
+			} else {
+				SharedPoolHolder.POOL.invoke(task);
+			}
+		}
+
+		for (int i = 0; i < count; i++) {
+			List<MoveBlocker> found = batchBlockers[i];
+			results[i] = found.isEmpty()
+					|| moveBlockerRuleApplier.moveValidationProcessing(
+							movables[i], new Vector<MoveBlocker>(found));
+			found.clear();
+		}
+	}
+
+	/**
+	 * Finds the blockers of the movables visited from <code>start</code> to
+	 * <code>end</code>. The index is read without locking: the caller holds
+	 * the lock for the whole batch.
+	 */
+	protected void findBlockers(GameMovable[] movables,
+			MoveBlocker[] movableBlockers, int start, int end) {
+		List<MoveBlocker> taskCandidates = new ArrayList<MoveBlocker>();
+		SweptBox taskBlockerBox = new SweptBox();
+		for (int k = start; k < end; k++) {
+			int i = (int) (batchOrder[k] & BATCH_INDEX_MASK);
+			GameMovable m = movables[i];
+			SweptBox box = batchBoxes[i];
+			Rectangle bounds = batchBounds[i];
+			List<MoveBlocker> found = batchBlockers[i];
+
+			nonMovableBlockers.query(bounds, taskCandidates);
+			for (MoveBlocker moveBlocker : taskCandidates) {
+				if (m != moveBlocker
+						&& box.intersects(taskBlockerBox.set(moveBlocker
+								.getBoundingBox()), exactIntersection)) {
+					found.add(moveBlocker);
+				}
+			}
+			taskCandidates.clear();
+
+			for (MoveBlocker moveBlocker : movableBlockers) {
+				Rectangle tmpB = moveBlocker.getBoundingBox();
+				if (m != moveBlocker && bounds.intersects(tmpB)
+						&& box.intersects(taskBlockerBox.set(tmpB),
+								exactIntersection)) {
+					found.add(moveBlocker);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the cell of the top left corner of the bounds, rows first,
+	 *         packed on 43 bits
+	 */
+	private static long cellKey(Rectangle bounds, int cellSize) {
+		long cellX = clampCell(Math.floor((double) bounds.x / cellSize));
+		long cellY = clampCell(Math.floor((double) bounds.y / cellSize));
+		return cellY << 22 | cellX;
+	}
+
+	private static long clampCell(double cell) {
+		return (long) Math.max(0, Math.min(CELL_KEY_MASK, cell
+				+ (CELL_KEY_MASK >> 1)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<MoveBlocker>[] newBlockerLists() {
+		return new List[0];
+	}
+
+	private void ensureBatchCapacity(int count) {
+		if (count >= 1 << 20) {
+			throw new IllegalArgumentException("Too many movables: " + count);
+		}
+		if (batchBoxes.length >= count) {
+			return;
+		}
+		int capacity = Math.max(count, batchBoxes.length * 2);
+		int previous = batchBoxes.length;
+		batchBoxes = Arrays.copyOf(batchBoxes, capacity);
+		batchBounds = Arrays.copyOf(batchBounds, capacity);
+		batchBlockers = Arrays.copyOf(batchBlockers, capacity);
+		batchOrder = new long[capacity];
+		for (int i = previous; i < capacity; i++) {
+			batchBoxes[i] = new SweptBox();
+			batchBounds[i] = new Rectangle();
+			batchBlockers[i] = new ArrayList<MoveBlocker>();
+		}
+	}
+
+	/**
+	 * Splits the visited movables in halves until few of them remain
+	 */
+	protected class BatchTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final GameMovable[] movables;
+		private final MoveBlocker[] movableBlockers;
+		private final int start, end;
+
+		BatchTask(GameMovable[] movables, MoveBlocker[] movableBlockers,
+				int start, int end) {
+			this.movables = movables;
+			this.movableBlockers = movableBlockers;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (end - start > PARALLEL_THRESHOLD) {
+				int middle = (start + end) >>> 1;
+				invokeAll(new BatchTask(movables, movableBlockers, start,
+						middle), new BatchTask(movables, movableBlockers,
+						middle, end));
+			} else {
+				findBlockers(movables, movableBlockers, start, end);
+			}
+		}
+	}
+
+	/**
+	 * Creates the shared pool only when a batch needs it
+	 */
+	private static class SharedPoolHolder {
+		static final ForkJoinPool POOL = new ForkJoinPool();
+	}
+}
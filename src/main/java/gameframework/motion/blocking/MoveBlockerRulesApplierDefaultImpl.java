@@ -1,11 +1,22 @@
 package gameframework.motion.blocking;
 
 import gameframework.game.GameData;
+import gameframework.metrics.GameMetricsListener;
+import gameframework.metrics.GameMetricsTracer;
 import gameframework.motion.GameMovable;
 import gameframework.motion.IllegalMoveException;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Take care of special blocking rules for your game. By default, a
@@ -31,44 +42,230 @@ import java.util.Vector;
  * }
  * </pre>
  *
+ * A rule also applies to subclasses of its parameters: the rule with the most
+ * specific parameters is chosen, and only once for two given classes. When
+ * no rule is more specific than the others, for instance for two unrelated
+ * interfaces of the movable, only the rule taking exactly the two classes
+ * applies.
  */
 public class MoveBlockerRulesApplierDefaultImpl implements
 		MoveBlockerRulesApplier {
 
+	/* Type every rule handle is adapted to, so that it can be invoked exactly */
+	private static final MethodType RULE_TYPE = MethodType.methodType(
+			void.class, MoveBlockerRulesApplierDefaultImpl.class,
+			GameMovable.class, MoveBlocker.class);
+
+	/*
+	 * Stored in the rule table when no public rule applies: the default rule
+	 * blocks the move, there is no need to call it
+	 */
+	private static final MethodHandle DEFAULT_RULE = MethodHandles
+			.dropArguments(MethodHandles.constant(Object.class, null).asType(
+					MethodType.methodType(void.class)), 0,
+					RULE_TYPE.parameterList());
+
 	protected GameData gameData;
 
+	/**
+	 * The rule applying to a movable and a blocker, by their classes, resolved
+	 * the first time the two classes meet
+	 */
+	private final Map<Class<?>, Map<Class<?>, MethodHandle>> rules = new ConcurrentHashMap<Class<?>, Map<Class<?>, MethodHandle>>();
+
+	/* True if a subclass overrides moveBlockerRuleApply, which is then used */
+	private final boolean ruleApplyOverridden;
+
+	public MoveBlockerRulesApplierDefaultImpl() {
+		boolean overridden = false;
+		for (Class<?> c = getClass(); c != MoveBlockerRulesApplierDefaultImpl.class; c = c
+				.getSuperclass()) {
+			try {
+				c.getDeclaredMethod("moveBlockerRuleApply", GameMovable.class,
+						MoveBlocker.class);
+				overridden = true;
+				break;
+			} catch (NoSuchMethodException e) {
+				// look in the superclass
+			}
+		}
+		ruleApplyOverridden = overridden;
+	}
+
 	/**
 	 * @see gameframework.motion.blocking.MoveBlockerRulesApplier#moveValidationProcessing(gameframework.motion.GameMovable, java.util.Vector)
 	 */
 	@Override
 	public boolean moveValidationProcessing(GameMovable movable, Vector<MoveBlocker> blockers) {
+		GameMetricsTracer tracer = gameData == null ? null : gameData
+				.getMetricsTracer();
+		Object span = tracer == null ? null : tracer
+				.started(GameMetricsTracer.Span.RULE_DISPATCH);
+		boolean allowed = true;
 		for (MoveBlocker moveBlocker : blockers) {
+			if (!isMoveAllowedBy(movable, moveBlocker)) {
+				allowed = false;
+				break;
+			}
+		}
+		if (span != null) {
+			tracer.ended(span, blockers.size(), 0);
+		}
+		return allowed;
+	}
+
+	/**
+	 * Applies the rule of the movable and the blocker without throwing any
+	 * exception. Overridden by the dispatchers generated for the
+	 * {@link BlockerRule} methods.
+	 *
+	 * @return false if the blocker blocks the movable
+	 */
+	protected boolean isMoveAllowedBy(GameMovable movable, MoveBlocker blocker) {
+		if (ruleApplyOverridden) {
+			ruleDispatched();
 			try {
-				moveBlockerRuleApply(movable, moveBlocker);
+				moveBlockerRuleApply(movable, blocker);
 			} catch (Exception e) {
-				/*
-				 * by default the moveBlocker implies the invalidation of the
-				 * move (in particular, if no method has been found by
-				 * moveBlockerRuleApply)
-				 */
 				return false;
 			}
+			return true;
+		}
+		MethodHandle rule = getRule(movable.getClass(), blocker.getClass());
+		/*
+		 * by default the moveBlocker implies the invalidation of the move (in
+		 * particular, if no rule has been found)
+		 */
+		if (rule == DEFAULT_RULE) {
+			return false;
+		}
+		ruleDispatched();
+		try {
+			rule.invokeExact(this, movable, blocker);
+		} catch (Throwable e) {
+			return false;
 		}
 		return true;
 	}
 
+	/**
+	 * Counts a rule about to be invoked as
+	 * {@link GameMetricsListener.Counter#RULE_DISPATCHES}. Also called by the
+	 * generated dispatchers.
+	 */
+	protected void ruleDispatched() {
+		GameMetricsListener metrics = gameData == null ? null : gameData
+				.getMetricsListener();
+		if (metrics != null) {
+			metrics.counted(GameMetricsListener.Counter.RULE_DISPATCHES, 1);
+		}
+	}
+
 	/**
 	 * Applies the moveBlockerRule by calling the correct method depending of the
-	 * parameters type.
+	 * parameters type. Called for each blocker when a subclass overrides it.
 	 * @param movable
 	 * @param blocker
 	 * @throws Exception
 	 */
 	protected void moveBlockerRuleApply(GameMovable movable, MoveBlocker blocker)
 			throws Exception {
-		Method m = (getClass()).getMethod("moveBlockerRule", movable.getClass(),
-				blocker.getClass());
-		m.invoke(this, movable, blocker);
+		MethodHandle rule = getRule(movable.getClass(), blocker.getClass());
+		if (rule == DEFAULT_RULE) {
+			moveBlockerRule(movable, blocker);
+			return;
+		}
+		try {
+			rule.invokeExact(this, movable, blocker);
+		} catch (Exception e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new InvocationTargetException(e);
+		}
+	}
+
+	/**
+	 * @return the public <code>moveBlockerRule</code> method with the most
+	 *         specific parameters accepting the two classes, or
+	 *         {@link #DEFAULT_RULE}
+	 */
+	protected MethodHandle getRule(Class<?> movableClass, Class<?> blockerClass) {
+		Map<Class<?>, MethodHandle> movableRules = rules.get(movableClass);
+		if (movableRules == null) {
+			movableRules = new ConcurrentHashMap<Class<?>, MethodHandle>();
+			rules.put(movableClass, movableRules);
+		}
+		MethodHandle rule = movableRules.get(blockerClass);
+		if (rule == null) {
+			rule = findRule(movableClass, blockerClass);
+			movableRules.put(blockerClass, rule);
+		}
+		return rule;
+	}
+
+	private MethodHandle findRule(Class<?> movableClass, Class<?> blockerClass) {
+		List<Method> applicable = new ArrayList<Method>();
+		for (Method m : getClass().getMethods()) {
+			Class<?>[] types = m.getParameterTypes();
+			if (m.getName().equals("moveBlockerRule") && types.length == 2
+					&& types[0].isAssignableFrom(movableClass)
+					&& types[1].isAssignableFrom(blockerClass)) {
+				applicable.add(m);
+			}
+		}
+		Method best = null;
+		for (Method m : applicable) {
+			if (isMostSpecific(m, applicable)) {
+				if (best != null
+						&& !Arrays.equals(best.getParameterTypes(),
+								m.getParameterTypes())) {
+					// ambiguous, as before the rules were resolved by type
+					best = findExactRule(movableClass, blockerClass);
+					break;
+				}
+				best = m;
+			}
+		}
+		if (best == null) {
+			return DEFAULT_RULE;
+		}
+		try {
+			// rules may be declared in classes not visible from this package
+			best.setAccessible(true);
+			return MethodHandles.lookup().unreflect(best).asType(RULE_TYPE);
+		} catch (IllegalAccessException e) {
+			throw new RuntimeException("Reflective invocation exception", e);
+		}
+	}
+
+	private static boolean isMostSpecific(Method m, List<Method> applicable) {
+		Class<?>[] types = m.getParameterTypes();
+		for (Method other : applicable) {
+			if (isMoreSpecific(other.getParameterTypes(), types)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private Method findExactRule(Class<?> movableClass, Class<?> blockerClass) {
+		try {
+			return getClass().getMethod("moveBlockerRule", movableClass,
+					blockerClass);
+		} catch (NoSuchMethodException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * The movable parameter is compared first: a rule for a subclass of the
+	 * movable wins over a rule for a subclass of the blocker
+	 */
+	private static boolean isMoreSpecific(Class<?>[] types, Class<?>[] other) {
+		if (types[0] != other[0]) {
+			return other[0].isAssignableFrom(types[0]);
+		}
+		return other[1].isAssignableFrom(types[1]) && types[1] != other[1];
 	}
 
 
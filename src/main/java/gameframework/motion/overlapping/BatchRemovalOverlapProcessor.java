@@ -0,0 +1,14 @@
+package gameframework.motion.overlapping;
+
+import java.util.Collection;
+
+/**
+ * An OverlapProcessor which can also remove several overlappables in a single
+ * call. The universe removes them one by one from the other processors.
+ */
+public interface BatchRemovalOverlapProcessor extends OverlapProcessor {
+	/**
+	 * Removes several overlappables at once, at a lower cost than one by one
+	 */
+	public void removeOverlappables(Collection<? extends Overlappable> overlappables);
+}
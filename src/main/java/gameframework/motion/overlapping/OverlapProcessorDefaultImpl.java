@@ -1,17 +1,24 @@
 package gameframework.motion.overlapping;
 
-import gameframework.motion.IntersectTools;
-import gameframework.motion.SpeedVector;
+import gameframework.base.SpatialHashGrid;
+import gameframework.metrics.GameMetricsTracer;
 import gameframework.motion.GameMovable;
+import gameframework.motion.GameMovableStore;
+import gameframework.motion.SweptBox;
 
 import java.awt.Rectangle;
-import java.awt.Shape;
-import java.awt.geom.Area;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.Vector;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
-public class OverlapProcessorDefaultImpl implements OverlapProcessor {
+public class OverlapProcessorDefaultImpl implements
+		BatchRemovalOverlapProcessor {
+	private static final int DEFAULT_CELL_SIZE = 16;
 
 	/**
 	 * These two lists contain all overlappables for which we want to compute
@@ -21,10 +28,47 @@ public class OverlapProcessorDefaultImpl implements OverlapProcessor {
 	protected ConcurrentLinkedQueue<Overlappable> nonMovableOverlappables;
 	protected ConcurrentLinkedQueue<Overlappable> movableOverlappables;
 
+	/**
+	 * Non-movables never move, so they are also indexed once by the cells of
+	 * their bounding box when added and only the ones close to a movable are
+	 * tested. Guards both collections of non-movables.
+	 */
+	protected final SpatialHashGrid<Overlappable> nonMovableIndex;
+
 	protected OverlapRulesApplier overlapRules;
 
+	protected boolean exactIntersection = false;
+
+	/**
+	 * Told when the overlaps are computed, if not null
+	 * @see #setMetricsTracer(GameMetricsTracer)
+	 */
+	protected GameMetricsTracer metricsTracer;
+
+	/**
+	 * The geometry of the movables it stores is read from there, if not null
+	 * @see #setMovableStore(GameMovableStore)
+	 */
+	protected GameMovableStore movableStore;
+
+	/* Reused between movables to avoid allocating on each test */
+	private final List<Overlappable> nonMovableCandidates = new ArrayList<Overlappable>();
+	private final SweptBox movableBox = new SweptBox();
+	private final SweptBox targetBox = new SweptBox();
+	private final Rectangle movableBounds = new Rectangle();
+
 	public OverlapProcessorDefaultImpl() {
+		this(DEFAULT_CELL_SIZE);
+	}
+
+	/**
+	 * @param cellSize
+	 *            the side of the cells indexing non-movables, usually
+	 *            {@link gameframework.game.GameConfiguration#getSpriteSize()}
+	 */
+	public OverlapProcessorDefaultImpl(int cellSize) {
 		nonMovableOverlappables = new ConcurrentLinkedQueue<Overlappable>();
+		nonMovableIndex = new SpatialHashGrid<Overlappable>(cellSize);
 		movableOverlappables = new ConcurrentLinkedQueue<Overlappable>();
 	}
 
@@ -33,7 +77,10 @@ public class OverlapProcessorDefaultImpl implements OverlapProcessor {
 		if (p.isMovable()) {
 			movableOverlappables.add(p);
 		} else {
-			nonMovableOverlappables.add(p);
+			synchronized (nonMovableIndex) {
+				nonMovableOverlappables.add(p);
+				nonMovableIndex.insert(p, p.getBoundingBox());
+			}
 		}
 	}
 
@@ -42,7 +89,38 @@ public class OverlapProcessorDefaultImpl implements OverlapProcessor {
 		if (p.isMovable()) {
 			movableOverlappables.remove(p);
 		} else {
-			nonMovableOverlappables.remove(p);
+			synchronized (nonMovableIndex) {
+				nonMovableOverlappables.remove(p);
+				nonMovableIndex.remove(p);
+			}
+		}
+	}
+
+	/**
+	 * Walks each queue once whatever the number of overlappables to remove
+	 */
+	@Override
+	public void removeOverlappables(
+			Collection<? extends Overlappable> overlappables) {
+		Set<Overlappable> movables = Collections
+				.newSetFromMap(new IdentityHashMap<Overlappable, Boolean>());
+		Set<Overlappable> nonMovables = Collections
+				.newSetFromMap(new IdentityHashMap<Overlappable, Boolean>());
+		synchronized (nonMovableIndex) {
+			for (Overlappable p : overlappables) {
+				if (p.isMovable()) {
+					movables.add(p);
+				} else {
+					nonMovables.add(p);
+					nonMovableIndex.remove(p);
+				}
+			}
+			if (!nonMovables.isEmpty()) {
+				nonMovableOverlappables.removeAll(nonMovables);
+			}
+		}
+		if (!movables.isEmpty()) {
+			movableOverlappables.removeAll(movables);
 		}
 	}
 
@@ -56,89 +134,124 @@ public class OverlapProcessorDefaultImpl implements OverlapProcessor {
 
 	@Override
 	public void processOverlapsAll() {
+		Object span = startTracing();
 		Vector<Overlap> overlaps = new Vector<Overlap>();
 		movablesTmp = new Vector<Overlappable>(movableOverlappables);
 		for (Overlappable movableOverlappable : movableOverlappables) {
 			movablesTmp.remove(movableOverlappable);
 			computeOneOverlap(movableOverlappable, overlaps);
 		}
+		endTracing(span, overlaps);
 		overlapRules.applyOverlapRules(overlaps);
 	}
 
+	/**
+	 * Traces the computation of the overlaps as
+	 * {@link GameMetricsTracer.Span#OVERLAPS}. Set by the
+	 * {@link gameframework.game.GameData} using the processor.
+	 */
+	public void setMetricsTracer(GameMetricsTracer metricsTracer) {
+		this.metricsTracer = metricsTracer;
+	}
+
+	/**
+	 * @return the span to give to {@link #endTracing}, null if not traced
+	 */
+	protected Object startTracing() {
+		GameMetricsTracer tracer = metricsTracer;
+		return tracer == null ? null : tracer
+				.started(GameMetricsTracer.Span.OVERLAPS);
+	}
+
+	protected void endTracing(Object span, List<Overlap> overlaps) {
+		if (span != null) {
+			metricsTracer.ended(span, movableOverlappables.size()
+					+ nonMovableOverlappables.size(), overlaps.size());
+		}
+	}
+
 	protected void computeOneOverlap(Overlappable movableOverlappable,
 			Vector<Overlap> overlaps) {
-		Area overlappableArea;
-		Rectangle boundingBoxOverlappable;
 		assert movableOverlappable.isMovable();
-		Shape intersectShape = intersectionComputation(movableOverlappable);
-
-		overlappableArea = new Area(intersectShape);
-		boundingBoxOverlappable = intersectShape.getBounds();
+		sweptBoxComputation(movableOverlappable, movableBox);
+		movableBox.getBounds(movableBounds);
 
-		overlappableArea = new Area(intersectShape);
-		boundingBoxOverlappable = intersectShape.getBounds();
-
-		computeOneOverlapMovables(movableOverlappable, overlaps, boundingBoxOverlappable, overlappableArea);
-		computeOneOverlapNonMovableOverlappables(movableOverlappable, overlaps, boundingBoxOverlappable, overlappableArea);
+		computeOneOverlapMovables(movableOverlappable, overlaps, movableBox);
+		computeOneOverlapNonMovableOverlappables(movableOverlappable, overlaps, movableBox, movableBounds);
 	}
 
 	protected void computeOneOverlapMovables(Overlappable movableOverlappable,
-			Vector<Overlap> overlaps, Rectangle boundingBoxOverlappable,
-			Area overlappableArea){
-
-		Rectangle boundingBoxTarget;
+			Vector<Overlap> overlaps, SweptBox movableBox){
 		for (Overlappable targetOverlappable : movablesTmp) {
 			if (targetOverlappable != movableOverlappable) {
-				Shape targetShape;
-				targetShape = IntersectTools.getIntersectShape(
-						(GameMovable) targetOverlappable, new SpeedVector(
-								((GameMovable) targetOverlappable).getSpeedVector()
-										.getDirection(),
-								-((GameMovable) targetOverlappable)
-										.getSpeedVector().getSpeed()));
-				boundingBoxTarget = targetShape.getBounds();
-				addOverlapsIfIntersect(boundingBoxOverlappable, boundingBoxTarget, targetShape, overlappableArea,
-						overlaps, movableOverlappable, targetOverlappable);
+				sweptBoxComputation(targetOverlappable, targetBox);
+				addOverlapsIfIntersect(movableBox, targetBox, overlaps,
+						movableOverlappable, targetOverlappable);
 			}
 		}
 	}
 
 	protected void computeOneOverlapNonMovableOverlappables(Overlappable movableOverlappable,
-			Vector<Overlap> overlaps, Rectangle boundingBoxOverlappable,
-			Area overlappableArea){
-		Rectangle boundingBoxTarget;
-		for (Overlappable targetNonMovableOverlappable : nonMovableOverlappables) {
+			Vector<Overlap> overlaps, SweptBox movableBox,
+			Rectangle boundingBoxOverlappable){
+		synchronized (nonMovableIndex) {
+			nonMovableIndex.query(boundingBoxOverlappable,
+					nonMovableCandidates);
+		}
+		for (Overlappable targetNonMovableOverlappable : nonMovableCandidates) {
 			if (targetNonMovableOverlappable != movableOverlappable) {
 				// NOTE I don't see how this test could fail
-				Shape targetShape;
-				targetShape = targetNonMovableOverlappable.getBoundingBox();
-				boundingBoxTarget = targetShape.getBounds();
-
-				addOverlapsIfIntersect(boundingBoxOverlappable, boundingBoxTarget, targetShape, overlappableArea,
-						overlaps, movableOverlappable, targetNonMovableOverlappable);
+				targetBox.set(targetNonMovableOverlappable.getBoundingBox());
+				addOverlapsIfIntersect(movableBox, targetBox, overlaps,
+						movableOverlappable, targetNonMovableOverlappable);
 			}
 		}
+		nonMovableCandidates.clear();
 	}
 
-	protected void addOverlapsIfIntersect(Rectangle boundingBoxOverlappable, Rectangle boundingBoxTarget,
-			Shape targetShape, Area overlappableArea, Vector<Overlap> overlaps,
+	protected void addOverlapsIfIntersect(SweptBox movableBox,
+			SweptBox targetBox, Vector<Overlap> overlaps,
 			Overlappable movableOverlappable, Overlappable targetOverlappable){
-		if (boundingBoxOverlappable.intersects(boundingBoxTarget)) {
-			Area targetArea = new Area(targetShape);
-			targetArea.intersect(overlappableArea);
-			if (!targetArea.isEmpty()) {
-				// NOTE I don't see how this test could fail
-				overlaps.add(new Overlap(movableOverlappable,targetOverlappable));
-			}
+		if (movableBox.intersects(targetBox, exactIntersection)) {
+			overlaps.add(new Overlap(movableOverlappable,targetOverlappable));
 		}
 	}
 
-	protected Shape intersectionComputation(Overlappable movableOverlappable) {
+	/**
+	 * Sets <code>result</code> to the zone covered by the movable during its
+	 * last move
+	 */
+	protected SweptBox sweptBoxComputation(Overlappable movableOverlappable,
+			SweptBox result) {
 		assert movableOverlappable.isMovable();
 		GameMovable movable = (GameMovable) movableOverlappable;
-		SpeedVector speedVector = movable.getSpeedVector();
-		SpeedVector oppositeSpeedVector = new SpeedVector(
-				speedVector.getDirection(), -1 * speedVector.getSpeed());
-		return IntersectTools.getIntersectShape(movable, oppositeSpeedVector);
+		if (movableStore != null && movable.getStore() == movableStore) {
+			return movableStore.getLastMove(movable.getStoreIndex(), result);
+		}
+		return result.setLastMove(movable);
+	}
+
+	/**
+	 * Reads the geometry of the movables stored in <code>movableStore</code>
+	 * from its arrays rather than from the movables. The store must be
+	 * refreshed before each call to {@link #processOverlapsAll()}, as done by
+	 * {@link gameframework.game.GameUniverseArrayImpl}.
+	 */
+	public void setMovableStore(GameMovableStore movableStore) {
+		this.movableStore = movableStore;
+	}
+
+	public GameMovableStore getMovableStore() {
+		return movableStore;
+	}
+
+	/**
+	 * By default, intersections are computed on ints without building any
+	 * shape. If <code>exactIntersection</code> is true, the intersections are
+	 * computed using {@link java.awt.geom.Area areas} instead. This is much
+	 * slower and only meant to validate the results.
+	 */
+	public void setExactIntersection(boolean exactIntersection) {
+		this.exactIntersection = exactIntersection;
 	}
 }
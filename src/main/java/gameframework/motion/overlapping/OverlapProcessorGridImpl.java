@@ -0,0 +1,108 @@
+package gameframework.motion.overlapping;
+
+import gameframework.base.SpatialHashGrid;
+
+import gameframework.motion.SweptBox;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+
+/**
+ * {@link OverlapProcessor} using a uniform spatial hash to only test the
+ * overlappables sharing a cell, instead of testing every movable against every
+ * other overlappable. It finds the same overlaps, in the same order, as
+ * {@link OverlapProcessorDefaultImpl}.
+ *
+ * Non-movable overlappables are indexed as in
+ * {@link OverlapProcessorDefaultImpl}, so their bounding box is expected not to
+ * change while they are in the processor. Movables are indexed again on each
+ * call to {@link #processOverlapsAll()}.
+ *
+ * To use it, override {@link gameframework.game.GameConfiguration#createOverlapProcessor()}
+ * and return <code>new OverlapProcessorGridImpl(getSpriteSize())</code>.
+ */
+public class OverlapProcessorGridImpl extends OverlapProcessorDefaultImpl {
+
+	protected final SpatialHashGrid<MovableEntry> movableGrid;
+
+	/* Reused between calls to avoid allocating on each tick */
+	private final List<MovableEntry> movableEntries = new ArrayList<MovableEntry>();
+	private final List<MovableEntry> movableCandidates = new ArrayList<MovableEntry>();
+	private int nbMovableEntries = 0;
+
+	/**
+	 * @param cellSize
+	 *            the side of a grid cell, usually
+	 *            {@link gameframework.game.GameConfiguration#getSpriteSize()}
+	 */
+	public OverlapProcessorGridImpl(int cellSize) {
+		super(cellSize);
+		movableGrid = new SpatialHashGrid<MovableEntry>(cellSize);
+	}
+
+	@Override
+	public void processOverlapsAll() {
+		Object span = startTracing();
+		Vector<Overlap> overlaps = new Vector<Overlap>();
+		indexMovables();
+		for (int i = 0; i < nbMovableEntries; i++) {
+			computeOneOverlap(movableEntries.get(i), overlaps);
+		}
+		movableGrid.clear();
+		for (int i = 0; i < nbMovableEntries; i++) {
+			movableEntries.get(i).overlappable = null;
+		}
+		endTracing(span, overlaps);
+		overlapRules.applyOverlapRules(overlaps);
+	}
+
+	protected void indexMovables() {
+		int index = 0;
+		for (Overlappable movableOverlappable : movableOverlappables) {
+			if (index == movableEntries.size()) {
+				movableEntries.add(new MovableEntry(index));
+			}
+			MovableEntry entry = movableEntries.get(index++);
+			entry.overlappable = movableOverlappable;
+			sweptBoxComputation(movableOverlappable, entry.box);
+			entry.box.getBounds(entry.bounds);
+			movableGrid.insert(entry, entry.bounds);
+		}
+		nbMovableEntries = index;
+	}
+
+	protected void computeOneOverlap(MovableEntry entry,
+			Vector<Overlap> overlaps) {
+		// Each pair of movables is only tested once, from the first movable
+		movableGrid.query(entry.bounds, movableCandidates);
+		for (MovableEntry target : movableCandidates) {
+			if (target.index > entry.index
+					&& target.overlappable != entry.overlappable) {
+				addOverlapsIfIntersect(entry.box, target.box, overlaps,
+						entry.overlappable, target.overlappable);
+			}
+		}
+		movableCandidates.clear();
+
+		computeOneOverlapNonMovableOverlappables(entry.overlappable, overlaps,
+				entry.box, entry.bounds);
+	}
+
+	/**
+	 * A movable with the zone of its last move, as indexed for one call to
+	 * {@link OverlapProcessorGridImpl#processOverlapsAll()}. Entries are
+	 * reused from one call to the next.
+	 */
+	protected static class MovableEntry {
+		final SweptBox box = new SweptBox();
+		final Rectangle bounds = new Rectangle();
+		final int index;
+		Overlappable overlappable;
+
+		MovableEntry(int index) {
+			this.index = index;
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package gameframework.motion.overlapping;
+
+import gameframework.motion.SweptBox;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * {@link OverlapProcessor} computing the overlaps of the movables on several
+ * cores. Movables are split in batches handled by the tasks of a
+ * {@link ForkJoinPool}, each batch collecting its overlaps in its own buffer.
+ * The buffers are then merged in the order of the batches, so the overlaps are
+ * the same, and in the same order, as with {@link OverlapProcessorDefaultImpl}.
+ * The rules are applied afterwards, in the calling thread.
+ *
+ * Overlappables may be read by several threads during the computation: their
+ * position, bounding box and speed vector must not change meanwhile, which is
+ * the case when the universe is only modified by the game loop.
+ */
+public class OverlapProcessorParallelImpl extends OverlapProcessorDefaultImpl {
+	private static final int DEFAULT_BATCH_SIZE = 16;
+
+	protected final ForkJoinPool pool;
+
+	/* Number of movables handled by a single task */
+	protected final int batchSize;
+
+	/**
+	 * Uses a pool shared by all the processors created this way, with one
+	 * thread per core.
+	 */
+	public OverlapProcessorParallelImpl(int cellSize) {
+		this(cellSize, SharedPoolHolder.POOL, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * @param cellSize
+	 *            the side of the cells indexing non-movables, usually
+	 *            {@link gameframework.game.GameConfiguration#getSpriteSize()}
+	 * @param pool
+	 *            the pool running the tasks
+	 * @param batchSize
+	 *            the number of movables handled by a single task. When there
+	 *            are no more movables than this, everything is computed in the
+	 *            calling thread.
+	 */
+	public OverlapProcessorParallelImpl(int cellSize, ForkJoinPool pool,
+			int batchSize) {
+		super(cellSize);
+		if (batchSize <= 0) {
+			throw new IllegalArgumentException("batchSize must be positive");
+		}
+		this.pool = pool;
+		this.batchSize = batchSize;
+	}
+
+	@Override
+	public void processOverlapsAll() {
+		Object span = startTracing();
+		Vector<Overlap> overlaps = new Vector<Overlap>();
+		synchronized (nonMovableIndex) {
+			Overlappable[] movables = movableOverlappables
+					.toArray(new Overlappable[0]);
+			SweptBox[] boxes = new SweptBox[movables.length];
+			for (int i = 0; i < movables.length; i++) {
+				boxes[i] = sweptBoxComputation(movables[i], new SweptBox());
+			}
+
+			int nbBatches = (movables.length + batchSize - 1) / batchSize;
+			@SuppressWarnings("unchecked")
+			List<Overlap>[] buffers = new List[nbBatches];
+			DetectionTask task = new DetectionTask(movables, boxes, buffers, 0,
+					nbBatches);
+			if (nbBatches <= 1) {
+				task.compute();
+			} else {
+				pool.invoke(task);
+			}
+
+			for (List<Overlap> buffer : buffers) {
+				overlaps.addAll(buffer);
+			}
+		}
+		endTracing(span, overlaps);
+		overlapRules.applyOverlapRules(overlaps);
+	}
+
+	/**
+	 * Computes the overlaps of the movables of one batch, in the same order as
+	 * {@link OverlapProcessorDefaultImpl}. The non-movables index is read
+	 * without locking: the caller holds the lock for the whole computation.
+	 */
+	protected void computeBatch(Overlappable[] movables, SweptBox[] boxes,
+			int start, int end, List<Overlap> buffer) {
+		Rectangle bounds = new Rectangle();
+		SweptBox targetBox = new SweptBox();
+		List<Overlappable> candidates = new ArrayList<Overlappable>();
+		for (int i = start; i < end; i++) {
+			Overlappable movable = movables[i];
+			SweptBox box = boxes[i];
+			box.getBounds(bounds);
+
+			for (int j = i + 1; j < movables.length; j++) {
+				if (movables[j] != movable
+						&& box.intersects(boxes[j], exactIntersection)) {
+					buffer.add(new Overlap(movable, movables[j]));
+				}
+			}
+
+			nonMovableIndex.query(bounds, candidates);
+			for (Overlappable target : candidates) {
+				if (target != movable
+						&& box.intersects(targetBox.set(target.getBoundingBox()),
+								exactIntersection)) {
+					buffer.add(new Overlap(movable, target));
+				}
+			}
+			candidates.clear();
+		}
+	}
+
+	/**
+	 * Splits the batches in halves until a single batch remains
+	 */
+	protected class DetectionTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Overlappable[] movables;
+		private final SweptBox[] boxes;
+		private final List<Overlap>[] buffers;
+		private final int firstBatch, endBatch;
+
+		DetectionTask(Overlappable[] movables, SweptBox[] boxes,
+				List<Overlap>[] buffers, int firstBatch, int endBatch) {
+			this.movables = movables;
+			this.boxes = boxes;
+			this.buffers = buffers;
+			this.firstBatch = firstBatch;
+			this.endBatch = endBatch;
+		}
+
+		@Override
+		protected void compute() {
+			if (endBatch - firstBatch > 1) {
+				int middle = (firstBatch + endBatch) >>> 1;
+				invokeAll(new DetectionTask(movables, boxes, buffers,
+						firstBatch, middle), new DetectionTask(movables, boxes,
+						buffers, middle, endBatch));
+				return;
+			}
+			for (int batch = firstBatch; batch < endBatch; batch++) {
+				List<Overlap> buffer = new ArrayList<Overlap>();
+				computeBatch(movables, boxes, batch * batchSize,
+						Math.min(movables.length, (batch + 1) * batchSize),
+						buffer);
+				buffers[batch] = buffer;
+			}
+		}
+	}
+
+	/**
+	 * Creates the shared pool only when a processor needs it
+	 */
+	private static class SharedPoolHolder {
+		static final ForkJoinPool POOL = new ForkJoinPool();
+	}
+}
@@ -0,0 +1,291 @@
+package gameframework.motion.overlapping;
+
+import gameframework.metrics.GameMetricsTracer;
+import gameframework.motion.GameMovable;
+import gameframework.motion.GameMovableStore;
+import gameframework.motion.SweptBox;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * {@link OverlapProcessor} using sweep and prune along the x axis. The
+ * overlappables are kept sorted by the left side of their bounds between two
+ * calls to {@link #processOverlapsAll()}. As most movables only move a few
+ * pixels per tick, the order barely changes and the insertion sort run on
+ * each call is close to linear.
+ *
+ * It finds the same overlaps as {@link OverlapProcessorDefaultImpl} but not
+ * necessarily in the same order. Between two movables, the first one added is
+ * always the first overlappable of the {@link Overlap}; between a movable and
+ * a non-movable, the movable always comes first.
+ *
+ * The rules are applied once the processor is unlocked, so that they can add
+ * or remove overlappables. Removed overlappables are only marked, and dropped
+ * from the sorted entries by the next call. Non-movable overlappables are
+ * expected to keep their bounding box while they are in the processor.
+ */
+public class OverlapProcessorSweepAndPruneImpl implements
+		BatchRemovalOverlapProcessor {
+
+	private static final int DEFAULT_CAPACITY = 64;
+
+	/* Sorted by the left side of their bounds */
+	protected Entry[] entries = new Entry[DEFAULT_CAPACITY];
+	protected int nbEntries = 0;
+	protected final Map<Overlappable, Entry> entriesByOverlappable = new IdentityHashMap<Overlappable, Entry>();
+
+	protected OverlapRulesApplier overlapRules;
+	protected boolean exactIntersection = false;
+	protected GameMetricsTracer metricsTracer;
+	protected GameMovableStore movableStore;
+
+	/* Reused between calls to avoid allocating on each tick */
+	private final Vector<Overlap> overlaps = new Vector<Overlap>();
+	private Entry[] activeMovables = new Entry[DEFAULT_CAPACITY];
+	private Entry[] activeNonMovables = new Entry[DEFAULT_CAPACITY];
+	private int nbActiveMovables, nbActiveNonMovables;
+	private long insertionCount = 0;
+	/* Entries marked removed, still in the sorted entries */
+	private int nbRemoved = 0;
+
+	@Override
+	public synchronized void addOverlappable(Overlappable p) {
+		if (entriesByOverlappable.containsKey(p)) {
+			return;
+		}
+		Entry entry = new Entry(p, insertionCount++);
+		if (!entry.movable) {
+			entry.box.set(p.getBoundingBox());
+			entry.box.getBounds(entry.bounds);
+		}
+		entriesByOverlappable.put(p, entry);
+		if (nbEntries == entries.length) {
+			entries = Arrays.copyOf(entries, nbEntries * 2);
+		}
+		// New entries are put at the end, the next sort will move them
+		entries[nbEntries++] = entry;
+	}
+
+	@Override
+	public synchronized void removeOverlappable(Overlappable p) {
+		Entry entry = entriesByOverlappable.remove(p);
+		if (entry != null) {
+			entry.removed = true;
+			nbRemoved++;
+		}
+	}
+
+	@Override
+	public synchronized void removeOverlappables(
+			Collection<? extends Overlappable> overlappables) {
+		for (Overlappable p : overlappables) {
+			removeOverlappable(p);
+		}
+	}
+
+	/**
+	 * Drops the entries marked removed, compacting the entries once whatever
+	 * their number
+	 */
+	protected void dropRemovedEntries() {
+		if (nbRemoved == 0) {
+			return;
+		}
+		nbRemoved = 0;
+		int kept = 0;
+		for (int i = 0; i < nbEntries; i++) {
+			if (!entries[i].removed) {
+				entries[kept++] = entries[i];
+			}
+		}
+		Arrays.fill(entries, kept, nbEntries, null);
+		nbEntries = kept;
+	}
+
+	@Override
+	public void setOverlapRules(OverlapRulesApplier overlapRules) {
+		this.overlapRules = overlapRules;
+	}
+
+	/**
+	 * Finds the overlaps while holding the lock of the processor, then applies
+	 * the rules to a copy of them after releasing it, as the rules may lock
+	 * the universe
+	 */
+	@Override
+	public void processOverlapsAll() {
+		Vector<Overlap> found;
+		synchronized (this) {
+			GameMetricsTracer tracer = metricsTracer;
+			Object span = tracer == null ? null : tracer
+					.started(GameMetricsTracer.Span.OVERLAPS);
+			overlaps.clear();
+			dropRemovedEntries();
+			updateMovableEntries();
+			sortEntries();
+			sweep();
+			if (span != null) {
+				tracer.ended(span, nbEntries, overlaps.size());
+			}
+			found = new Vector<Overlap>(overlaps);
+			overlaps.clear();
+		}
+		overlapRules.applyOverlapRules(found);
+	}
+
+	/**
+	 * See {@link OverlapProcessorDefaultImpl#setMetricsTracer(GameMetricsTracer)}
+	 */
+	public void setMetricsTracer(GameMetricsTracer metricsTracer) {
+		this.metricsTracer = metricsTracer;
+	}
+
+	/**
+	 * See {@link OverlapProcessorDefaultImpl#setMovableStore(GameMovableStore)}
+	 */
+	public void setMovableStore(GameMovableStore movableStore) {
+		this.movableStore = movableStore;
+	}
+
+	public GameMovableStore getMovableStore() {
+		return movableStore;
+	}
+
+	protected void updateMovableEntries() {
+		for (int i = 0; i < nbEntries; i++) {
+			Entry entry = entries[i];
+			if (entry.movable) {
+				GameMovable movable = (GameMovable) entry.overlappable;
+				if (movableStore != null && movable.getStore() == movableStore) {
+					movableStore.getLastMove(movable.getStoreIndex(), entry.box);
+				} else {
+					entry.box.setLastMove(movable);
+				}
+				entry.box.getBounds(entry.bounds);
+			}
+		}
+	}
+
+	/**
+	 * Insertion sort on the left side of the bounds: close to linear when the
+	 * entries are almost sorted, which is the case from one tick to the next.
+	 */
+	protected void sortEntries() {
+		for (int i = 1; i < nbEntries; i++) {
+			Entry entry = entries[i];
+			int x = entry.bounds.x;
+			int j = i - 1;
+			while (j >= 0 && entries[j].bounds.x > x) {
+				entries[j + 1] = entries[j];
+				j--;
+			}
+			entries[j + 1] = entry;
+		}
+	}
+
+	/**
+	 * Walks the sorted entries while keeping the movables and the non-movables
+	 * whose bounds are still crossed by the sweep line. Non-movables never
+	 * overlap each other, so a non-movable is only tested against the active
+	 * movables.
+	 */
+	protected void sweep() {
+		if (activeMovables.length < entries.length) {
+			activeMovables = new Entry[entries.length];
+			activeNonMovables = new Entry[entries.length];
+		}
+		nbActiveMovables = 0;
+		nbActiveNonMovables = 0;
+		for (int i = 0; i < nbEntries; i++) {
+			Entry entry = entries[i];
+			if (entry.bounds.isEmpty()) {
+				continue;
+			}
+			int sweepX = entry.bounds.x;
+
+			nbActiveMovables = prune(activeMovables, nbActiveMovables, sweepX);
+			testAgainst(entry, activeMovables, nbActiveMovables);
+			if (entry.movable) {
+				nbActiveNonMovables = prune(activeNonMovables,
+						nbActiveNonMovables, sweepX);
+				testAgainst(entry, activeNonMovables, nbActiveNonMovables);
+				activeMovables[nbActiveMovables++] = entry;
+			} else {
+				activeNonMovables[nbActiveNonMovables++] = entry;
+			}
+		}
+		Arrays.fill(activeMovables, 0, nbActiveMovables, null);
+		Arrays.fill(activeNonMovables, 0, nbActiveNonMovables, null);
+	}
+
+	/**
+	 * Removes the entries ending before <code>sweepX</code>, keeping the
+	 * remaining ones in order.
+	 * 
+	 * @return the number of remaining entries
+	 */
+	private int prune(Entry[] active, int nbActive, int sweepX) {
+		int kept = 0;
+		for (int j = 0; j < nbActive; j++) {
+			Rectangle bounds = active[j].bounds;
+			if (bounds.x + bounds.width > sweepX) {
+				active[kept++] = active[j];
+			}
+		}
+		Arrays.fill(active, kept, nbActive, null);
+		return kept;
+	}
+
+	private void testAgainst(Entry entry, Entry[] active, int nbActive) {
+		for (int j = 0; j < nbActive; j++) {
+			Entry target = active[j];
+			if (entry.overlappable != target.overlappable
+					&& entry.bounds.intersects(target.bounds)) {
+				addOverlapIfIntersect(entry, target);
+			}
+		}
+	}
+
+	protected void addOverlapIfIntersect(Entry entry1, Entry entry2) {
+		Entry first = entry1, second = entry2;
+		if (!first.movable
+				|| (second.movable && second.order < first.order)) {
+			first = entry2;
+			second = entry1;
+		}
+		if (first.box.intersects(second.box, exactIntersection)) {
+			overlaps.add(new Overlap(first.overlappable, second.overlappable));
+		}
+	}
+
+	/**
+	 * See {@link OverlapProcessorDefaultImpl#setExactIntersection(boolean)}
+	 */
+	public void setExactIntersection(boolean exactIntersection) {
+		this.exactIntersection = exactIntersection;
+	}
+
+	/**
+	 * An overlappable with the zone it covers during the current tick
+	 */
+	protected static class Entry {
+		final Overlappable overlappable;
+		final boolean movable;
+		final long order;
+		final SweptBox box = new SweptBox();
+		final Rectangle bounds = new Rectangle();
+		/* Set when removed, until dropped from the sorted entries */
+		boolean removed = false;
+
+		Entry(Overlappable overlappable, long order) {
+			this.overlappable = overlappable;
+			this.movable = overlappable.isMovable();
+			this.order = order;
+		}
+	}
+}
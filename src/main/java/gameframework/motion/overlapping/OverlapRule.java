@@ -0,0 +1,29 @@
+package gameframework.motion.overlapping;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a method of a subclass of {@link OverlapRulesApplierDefaultImpl} as an
+ * overlap rule. The method takes the two overlappables, in any order, and may
+ * have any name.
+ *
+ * At compile time, a <code>Dispatcher</code> subclass calling the rules
+ * without reflection is generated next to the annotated class, for instance
+ * <code>PacmanOverlapRulesDispatcher</code> for
+ * <code>PacmanOverlapRules</code>. Return an instance of it from
+ * {@link gameframework.game.GameConfiguration#createOverlapRulesApplier()}.
+ *
+ * Unlike the methods found by reflection, an annotated rule also applies to
+ * subclasses of its parameters; the rule with the most specific parameters is
+ * called. Overlaps matching no annotated rule go through
+ * {@link OverlapRulesApplierDefaultImpl} as before.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface OverlapRule {
+}
@@ -2,20 +2,81 @@ package gameframework.motion.overlapping;
 
 import gameframework.game.GameData;
 import gameframework.game.GameUniverse;
+import gameframework.metrics.GameMetricsListener;
+import gameframework.metrics.GameMetricsTracer;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class OverlapRulesApplierDefaultImpl implements OverlapRulesApplier {
 
+	/* Type every rule handle is adapted to, so that it can be invoked exactly */
+	private static final MethodType RULE_TYPE = MethodType.methodType(
+			void.class, OverlapRulesApplierDefaultImpl.class,
+			Overlappable.class, Overlappable.class);
+
+	/* Stored in the dispatch tables when there is no rule for two classes */
+	private static final Rule NO_RULE = new Rule(null, null, false);
+
 	protected GameData data;
-	
+
+	/**
+	 * The rule applying to an overlap, by the classes of its two
+	 * overlappables, in either order. Rules found with the parameters
+	 * reversed are stored with their arguments swapped, so every handle is
+	 * called the same way.
+	 */
+	private final Map<Class<?>, Map<Class<?>, Rule>> dispatchTable = new ConcurrentHashMap<Class<?>, Map<Class<?>, Rule>>();
+
+	/* The rules taking the two classes in this order only */
+	private final Map<Class<?>, Map<Class<?>, Rule>> directDispatchTable = new ConcurrentHashMap<Class<?>, Map<Class<?>, Rule>>();
+
+	/* True if a subclass overrides invoke(Method, ...), which is then used */
+	private final boolean reflectiveInvoke;
+
+	public OverlapRulesApplierDefaultImpl() {
+		reflectiveInvoke = overridesReflectiveInvoke(getClass());
+	}
+
+	private static boolean overridesReflectiveInvoke(Class<?> type) {
+		for (Class<?> c = type; c != OverlapRulesApplierDefaultImpl.class; c = c
+				.getSuperclass()) {
+			try {
+				c.getDeclaredMethod("invoke", Method.class, Overlappable.class,
+						Overlappable.class);
+				return true;
+			} catch (NoSuchMethodException e) {
+				// look in the superclass
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public void applyOverlapRules(Vector<Overlap> overlaps) {
+		GameMetricsListener metrics = data == null ? null : data
+				.getMetricsListener();
+		if (metrics != null) {
+			metrics.counted(GameMetricsListener.Counter.OVERLAPS_FOUND,
+					overlaps.size());
+		}
+		GameMetricsTracer tracer = data == null ? null : data
+				.getMetricsTracer();
+		Object span = tracer == null ? null : tracer
+				.started(GameMetricsTracer.Span.RULE_DISPATCH);
 		for (Overlap col : overlaps) {
 			applySpecificOverlapRule(col.getOverlappable1(), col.getOverlappable2(),
 					true);
 		}
+		if (span != null) {
+			tracer.ended(span, overlaps.size(), 0);
+		}
 	}
 
 	/**
@@ -30,18 +91,91 @@ public class OverlapRulesApplierDefaultImpl implements OverlapRulesApplier {
 	 */
 	protected void applySpecificOverlapRule(Overlappable e1, Overlappable e2,
 			boolean tryToReverseParameters) {
+		Rule rule = getRule(e1.getClass(), e2.getClass(),
+				tryToReverseParameters);
+		if (rule == NO_RULE) {
+			return;
+		}
+		ruleDispatched();
+		if (!reflectiveInvoke) {
+			invoke(rule.handle, e1, e2);
+		} else if (rule.reversed) {
+			invoke(rule.method, e2, e1);
+		} else {
+			invoke(rule.method, e1, e2);
+		}
+	}
+
+	/**
+	 * Counts a rule about to be invoked as
+	 * {@link GameMetricsListener.Counter#RULE_DISPATCHES}. Also called by the
+	 * generated dispatchers.
+	 */
+	protected void ruleDispatched() {
+		GameMetricsListener metrics = data == null ? null : data
+				.getMetricsListener();
+		if (metrics != null) {
+			metrics.counted(GameMetricsListener.Counter.RULE_DISPATCHES, 1);
+		}
+	}
+
+	/**
+	 * @return the handle of the rule for the two classes, in either order,
+	 *         resolved on the first call only, or null if there is none
+	 */
+	protected MethodHandle getRule(Class<?> class1, Class<?> class2) {
+		return getRule(class1, class2, true).handle;
+	}
+
+	private Rule getRule(Class<?> class1, Class<?> class2, boolean reversible) {
+		Map<Class<?>, Map<Class<?>, Rule>> table = reversible ? dispatchTable
+				: directDispatchTable;
+		Map<Class<?>, Rule> rules = table.get(class1);
+		if (rules == null) {
+			rules = new ConcurrentHashMap<Class<?>, Rule>();
+			table.put(class1, rules);
+		}
+		Rule rule = rules.get(class2);
+		if (rule == null) {
+			rule = findRule(class1, class2, false);
+			if (rule == NO_RULE && reversible) {
+				rule = findRule(class2, class1, true);
+			}
+			rules.put(class2, rule);
+		}
+		return rule;
+	}
+
+	/**
+	 * @return the <code>overlapRule</code> method taking exactly the two
+	 *         classes, or {@link #NO_RULE}
+	 */
+	private Rule findRule(Class<?> class1, Class<?> class2, boolean reversed) {
 		Method m;
 		try {
-			m = getClass().getMethod("overlapRule", e1.getClass(),
-					e2.getClass());
+			m = getClass().getMethod("overlapRule", class1, class2);
 		} catch (NoSuchMethodException e) {
-			if (tryToReverseParameters)
-				applySpecificOverlapRule(e2, e1, false);
-			return;
+			return NO_RULE;
+		}
+		try {
+			// rules may be declared in classes not visible from this package
+			m.setAccessible(true);
+			MethodHandle handle = MethodHandles.lookup().unreflect(m)
+					.asType(RULE_TYPE);
+			if (reversed) {
+				handle = MethodHandles.permuteArguments(handle, RULE_TYPE, 0,
+						2, 1);
+			}
+			return new Rule(m, handle, reversed);
+		} catch (Exception e) {
+			throw new RuntimeException("Reflective invocation exception", e);
 		}
-		invoke(m, e1, e2);
 	}
 
+	/**
+	 * Only called by the dispatch when a subclass overrides it, the rules are
+	 * otherwise invoked through {@link #invoke(MethodHandle, Overlappable, Overlappable)}
+	 */
 	protected void invoke(Method m, Overlappable e1, Overlappable e2) {
 		try {
 			m.invoke(this, e1, e2);
@@ -50,6 +184,16 @@ public class OverlapRulesApplierDefaultImpl implements OverlapRulesApplier {
 		}
 	}
 
+	protected void invoke(MethodHandle rule, Overlappable e1, Overlappable e2) {
+		try {
+			rule.invokeExact(this, e1, e2);
+		} catch (Throwable e) {
+			// same exception as when the rule was called through reflection
+			throw new RuntimeException("Reflective invocation exception",
+					new InvocationTargetException(e));
+		}
+	}
+
 	public GameUniverse getUniverse() {
 		return data.getUniverse();
 	}
@@ -58,4 +202,17 @@ public class OverlapRulesApplierDefaultImpl implements OverlapRulesApplier {
 	public void setGameData(GameData data) {
 		this.data = data;
 	}
+
+	/* A rule method, and its handle taking the overlappables in order */
+	private static class Rule {
+		final Method method;
+		final MethodHandle handle;
+		final boolean reversed;
+
+		Rule(Method method, MethodHandle handle, boolean reversed) {
+			this.method = method;
+			this.handle = handle;
+			this.reversed = reversed;
+		}
+	}
 }
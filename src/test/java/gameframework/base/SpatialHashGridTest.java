@@ -0,0 +1,84 @@
+package gameframework.base;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SpatialHashGridTest {
+
+	SpatialHashGrid<String> grid;
+	List<String> result;
+
+	@Before
+	public void createGrid() {
+		grid = new SpatialHashGrid<String>(16);
+		result = new ArrayList<String>();
+	}
+
+	@Test
+	public void queryFindsIntersectingItemsInInsertionOrder() {
+		grid.insert("b", new Rectangle(20, 0, 16, 16));
+		grid.insert("a", new Rectangle(0, 0, 16, 16));
+		grid.insert("far", new Rectangle(500, 500, 16, 16));
+		grid.query(new Rectangle(0, 0, 40, 16), result);
+		assertEquals(Arrays.asList("b", "a"), result);
+	}
+
+	@Test
+	public void queryDoesNotReturnTouchingItems() {
+		grid.insert("a", new Rectangle(0, 0, 16, 16));
+		grid.query(new Rectangle(16, 0, 16, 16), result);
+		assertTrue(result.isEmpty());
+	}
+
+	@Test
+	public void itemsSpanningManyCellsAreReturnedOnce() {
+		grid.insert("big", new Rectangle(-40, -40, 100, 100));
+		grid.query(new Rectangle(-50, -50, 200, 200), result);
+		assertEquals(Arrays.asList("big"), result);
+	}
+
+	@Test
+	public void negativeCoordinates() {
+		grid.insert("a", new Rectangle(-16, -16, 16, 16));
+		grid.query(new Rectangle(-1, -1, 1, 1), result);
+		assertEquals(Arrays.asList("a"), result);
+		result.clear();
+		grid.query(new Rectangle(0, 0, 1, 1), result);
+		assertTrue(result.isEmpty());
+	}
+
+	@Test
+	public void removeAndClear() {
+		grid.insert("a", new Rectangle(0, 0, 16, 16));
+		grid.insert("b", new Rectangle(0, 0, 16, 16));
+		grid.remove("a");
+		assertFalse(grid.contains("a"));
+		grid.query(new Rectangle(0, 0, 16, 16), result);
+		assertEquals(Arrays.asList("b"), result);
+
+		grid.clear();
+		result.clear();
+		grid.query(new Rectangle(0, 0, 16, 16), result);
+		assertTrue(result.isEmpty());
+		assertEquals(0, grid.size());
+	}
+
+	@Test
+	public void insertingAgainMovesTheItem() {
+		grid.insert("a", new Rectangle(0, 0, 16, 16));
+		grid.insert("a", new Rectangle(100, 100, 16, 16));
+		grid.query(new Rectangle(0, 0, 16, 16), result);
+		assertTrue(result.isEmpty());
+		grid.query(new Rectangle(100, 100, 16, 16), result);
+		assertEquals(Arrays.asList("a"), result);
+	}
+}
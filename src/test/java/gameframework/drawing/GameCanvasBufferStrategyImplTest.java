@@ -0,0 +1,27 @@
+package gameframework.drawing;
+
+import gameframework.game.GameConfiguration;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GameCanvasBufferStrategyImplTest {
+
+	@Test
+	public void noStrategyUntilDisplayable() {
+		GameCanvasBufferStrategyImpl canvas = new GameCanvasBufferStrategyImpl();
+		canvas.setSize(100, 100);
+		assertNull(canvas.getBufferStrategy());
+	}
+
+	@Test
+	public void createdByConfiguration() {
+		GameConfiguration configuration = new GameConfiguration();
+		configuration.setAcceleratedRendering(true);
+		assertTrue(configuration.createCanvas() instanceof GameCanvasBufferStrategyImpl);
+		configuration.setHeadless(true);
+		assertTrue(configuration.createCanvas() instanceof GameCanvasHeadlessImpl);
+	}
+}
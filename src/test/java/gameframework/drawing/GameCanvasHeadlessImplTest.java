@@ -0,0 +1,30 @@
+package gameframework.drawing;
+
+import java.awt.Image;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class GameCanvasHeadlessImplTest {
+
+	GameCanvas canvas = new GameCanvasHeadlessImpl();
+
+	@Test
+	public void bufferHasTheSizeOfTheCanvas() throws Exception {
+		canvas.setSize(20, 10);
+		Image buffer = canvas.createBuffer();
+		assertEquals(20, buffer.getWidth(null));
+		assertEquals(10, buffer.getHeight(null));
+		canvas.drawFullSizeImage(buffer);
+	}
+
+	@Test
+	public void loadsImages() throws Exception {
+		DrawableImage image = new DrawableImage("/images/black_background.png",
+				canvas);
+		assertNotNull(image.getImage());
+		image.draw(canvas.createBuffer().getGraphics());
+	}
+}
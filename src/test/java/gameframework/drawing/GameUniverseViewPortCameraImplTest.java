@@ -0,0 +1,204 @@
+package gameframework.drawing;
+
+import gameframework.base.ObjectWithBoundedBox;
+import gameframework.game.GameConfiguration;
+import gameframework.game.GameData;
+import gameframework.game.GameEntity;
+import gameframework.motion.GameMovable;
+
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class GameUniverseViewPortCameraImplTest {
+
+	List<GameEntity> drawn = new ArrayList<GameEntity>();
+	GameData data;
+	GameUniverseViewPortCameraImpl camera;
+
+	@Before
+	public void createCamera() {
+		data = new GameData(new GameConfiguration() {
+
+			@Override
+			public GameCanvas createCanvas() {
+				GameCanvas canvas = new GameCanvasHeadlessImpl();
+				canvas.setSize(100, 80);
+				return canvas;
+			}
+		});
+		camera = new GameUniverseViewPortCameraImpl(data);
+	}
+
+	@Test
+	public void onlyVisibleEntitiesAreDrawn() {
+		Tile[][] tiles = new Tile[50][50];
+		for (int i = 0; i < 50; i++) {
+			for (int j = 0; j < 50; j++) {
+				tiles[i][j] = new Tile(new Rectangle(i * 16, j * 16, 16, 16));
+				data.getUniverse().addGameEntity(tiles[i][j]);
+			}
+		}
+		camera.setCameraPosition(160, 160);
+		camera.paint();
+		// 7 columns from 160 to 260, 5 rows from 160 to 240
+		assertEquals(35, drawn.size());
+		assertEquals(tiles[10][10], drawn.get(0));
+
+		data.getUniverse().removeGameEntity(tiles[10][10]);
+		drawn.clear();
+		camera.paint();
+		assertEquals(34, drawn.size());
+	}
+
+	@Test
+	public void entitiesAreDrawnInTheOrderOfTheUniverse() {
+		Tile floor = new Tile(new Rectangle(0, 0, 16, 16));
+		Walker walker = new Walker(new Rectangle(0, 0, 16, 16));
+		Tile roof = new Tile(new Rectangle(0, 0, 16, 16));
+		Tile farAway = new Tile(new Rectangle(1000, 1000, 16, 16));
+		data.getUniverse().addGameEntity(floor);
+		data.getUniverse().addGameEntity(walker);
+		data.getUniverse().addGameEntity(farAway);
+		data.getUniverse().addGameEntity(roof);
+		camera.paint();
+		assertEquals(Arrays.<GameEntity> asList(floor, walker, roof), drawn);
+	}
+
+	@Test
+	public void removedFromWhereTheyWereFiled() {
+		final boolean[] moving = { true };
+		Walker stopping = new Walker(new Rectangle(0, 0, 16, 16)) {
+
+			@Override
+			public boolean isMovable() {
+				return moving[0];
+			}
+		};
+		Walker twin = new Walker(new Rectangle(0, 0, 16, 16)) {
+
+			@Override
+			public boolean equals(Object other) {
+				return other instanceof Walker;
+			}
+
+			@Override
+			public int hashCode() {
+				return 0;
+			}
+		};
+		Walker walker = new Walker(new Rectangle(0, 0, 16, 16));
+		data.getUniverse().addGameEntity(stopping);
+		data.getUniverse().addGameEntity(twin);
+		data.getUniverse().addGameEntity(walker);
+		moving[0] = false;
+		data.getUniverse().removeGameEntity(stopping);
+		data.getUniverse().removeGameEntity(walker);
+		camera.paint();
+		assertEquals(Arrays.<GameEntity> asList(twin), drawn);
+	}
+
+	@Test
+	public void entitiesAddedBeforeTheCameraAreIndexed() {
+		data.getUniverse().addGameEntity(new Tile(new Rectangle(0, 0, 16, 16)));
+		camera = new GameUniverseViewPortCameraImpl(data);
+		camera.paint();
+		assertEquals(1, drawn.size());
+		camera.dispose();
+	}
+
+	@Test
+	public void followsTheTargetSmoothly() {
+		Walker walker = new Walker(new Rectangle(500, 400, 16, 16));
+		data.getUniverse().addGameEntity(walker);
+		camera.follow(walker);
+		camera.setFollowSmoothing(0.5);
+		camera.paint();
+		// centered on (508, 408) is (458, 368), half of the way is done
+		assertEquals(new Point(229, 184), camera.getVisibleArea().getLocation());
+		camera.setFollowSmoothing(1);
+		camera.paint();
+		assertEquals(new Rectangle(458, 368, 100, 80), camera.getVisibleArea());
+		assertEquals(1, drawn.size());
+	}
+
+	@Test
+	public void snapshotsFollowTheTarget() {
+		Walker walker = new Walker(new Rectangle(500, 400, 16, 16));
+		Tile farAway = new Tile(new Rectangle(0, 0, 16, 16));
+		data.getUniverse().addGameEntity(farAway);
+		data.getUniverse().addGameEntity(walker);
+		camera.follow(walker);
+		camera.setFollowSmoothing(1);
+		UniverseSnapshot snapshot = UniverseSnapshot.take(data.getUniverse()
+				.getGameEntitiesIterator(), 0);
+		assertEquals(Arrays.<GameEntity> asList(farAway, walker), drawn);
+		drawn.clear();
+		camera.paint(snapshot);
+		assertEquals(new Rectangle(458, 368, 100, 80), camera.getVisibleArea());
+		assertEquals(0, drawn.size());
+	}
+
+	@Test
+	public void cameraStaysInTheWorld() {
+		camera.setWorldBounds(new Rectangle(0, 0, 800, 600));
+		camera.setCameraPosition(-20, 590);
+		assertEquals(new Point(0, 520), camera.getVisibleArea().getLocation());
+		Point screen = new Point();
+		camera.getWorldToScreenTransform().transform(new Point(10, 530), screen);
+		assertEquals(new Point(10, 10), screen);
+	}
+
+	class Tile implements GameEntity, ObjectWithBoundedBox {
+		final Rectangle bounds;
+
+		Tile(Rectangle bounds) {
+			this.bounds = bounds;
+		}
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return bounds;
+		}
+
+		@Override
+		public void draw(Graphics g) {
+			drawn.add(this);
+		}
+
+		@Override
+		public boolean isMovable() {
+			return false;
+		}
+	}
+
+	class Walker extends GameMovable implements GameEntity {
+		final Rectangle bounds;
+
+		Walker(Rectangle bounds) {
+			this.bounds = bounds;
+		}
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return bounds;
+		}
+
+		@Override
+		public void draw(Graphics g) {
+			drawn.add(this);
+		}
+
+		@Override
+		public void oneStepMoveAddedBehavior() {
+		}
+	}
+}
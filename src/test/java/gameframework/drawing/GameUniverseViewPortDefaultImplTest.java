@@ -0,0 +1,270 @@
+package gameframework.drawing;
+
+import gameframework.base.ObjectWithBoundedBox;
+import gameframework.game.GameConfiguration;
+import gameframework.game.GameData;
+import gameframework.game.GameEntity;
+import gameframework.motion.GameMovable;
+
+import java.awt.Frame;
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.MediaTracker;
+import java.awt.Rectangle;
+import java.awt.event.KeyListener;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class GameUniverseViewPortDefaultImplTest {
+
+	Rectangle pushedArea;
+	int fullFrames;
+	GameData data;
+	GameUniverseViewPortDefaultImpl viewPort;
+
+	@Before
+	public void createViewPort() {
+		data = new GameData(new GameConfiguration() {
+
+			@Override
+			public GameCanvas createCanvas() {
+				GameCanvasHeadlessImpl canvas = new GameCanvasHeadlessImpl() {
+
+					@Override
+					public void drawFullSizeImage(Image buffer) {
+						fullFrames++;
+					}
+
+					@Override
+					public void drawFullSizeImage(Image buffer, Rectangle area) {
+						pushedArea = area;
+					}
+				};
+				canvas.setSize(200, 200);
+				return canvas;
+			}
+		});
+		viewPort = new GameUniverseViewPortDefaultImpl(data);
+		viewPort.setDirtyRectangles(true);
+	}
+
+	@Test
+	public void firstFrameIsFull() {
+		BoxEntity entity = new BoxEntity(new Rectangle(0, 0, 16, 16));
+		data.getUniverse().addGameEntity(entity);
+		viewPort.paint();
+		assertEquals(1, fullFrames);
+		assertEquals(1, entity.drawn);
+		assertNull(pushedArea);
+	}
+
+	@Test
+	public void onlyDamagedAreasArePainted() {
+		BoxEntity wall = new BoxEntity(new Rectangle(100, 100, 16, 16));
+		MovingEntity pacman = new MovingEntity(new Rectangle(0, 0, 16, 16));
+		data.getUniverse().addGameEntity(wall);
+		data.getUniverse().addGameEntity(pacman);
+		viewPort.paint();
+
+		pacman.bounds = new Rectangle(4, 0, 16, 16);
+		viewPort.paint();
+		assertEquals(1, fullFrames);
+		assertEquals(1, wall.drawn);
+		assertEquals(2, pacman.drawn);
+		assertEquals(new Rectangle(0, 0, 20, 16), pushedArea);
+
+		data.getUniverse().removeGameEntity(wall);
+		viewPort.paint();
+		assertEquals(new Rectangle(4, 0, 112, 116), pushedArea);
+		assertEquals(1, fullFrames);
+	}
+
+	@Test
+	public void boundsMovedInPlaceAreRepainted() {
+		MovingEntity pacman = new MovingEntity(new Rectangle(0, 0, 16, 16));
+		data.getUniverse().addGameEntity(pacman);
+		viewPort.paint();
+
+		pacman.bounds.translate(4, 0);
+		viewPort.paint();
+		assertEquals(new Rectangle(0, 0, 20, 16), pushedArea);
+	}
+
+	@Test
+	public void otherCanvasesAreRefreshedWhole() {
+		data = new GameData(new GameConfiguration() {
+
+			@Override
+			public GameCanvas createCanvas() {
+				return new FullFrameCanvas();
+			}
+		});
+		data.getCanvas().setSize(200, 200);
+		viewPort = new GameUniverseViewPortDefaultImpl(data);
+		viewPort.setDirtyRectangles(true);
+		MovingEntity pacman = new MovingEntity(new Rectangle(0, 0, 16, 16));
+		data.getUniverse().addGameEntity(pacman);
+		viewPort.paint();
+
+		pacman.bounds = new Rectangle(4, 0, 16, 16);
+		viewPort.paint();
+		assertEquals(2, fullFrames);
+		assertEquals(2, pacman.drawn);
+	}
+
+	@Test
+	public void entityWithoutBoundsPaintsTheWholeFrame() {
+		data.getUniverse().addGameEntity(new BoxEntity(new Rectangle(0, 0, 16,
+				16)));
+		data.getUniverse().addGameEntity(new GameEntity() {
+
+			@Override
+			public void draw(Graphics g) {
+			}
+
+			@Override
+			public boolean isMovable() {
+				return false;
+			}
+		});
+		viewPort.paint();
+		viewPort.paint();
+		assertEquals(2, fullFrames);
+	}
+
+	@Test
+	public void staticEntitiesAreDrawnOnce() {
+		viewPort.setDirtyRectangles(false);
+		viewPort.setStaticLayer(true);
+		Wall wall = new Wall(new Rectangle(0, 0, 16, 16));
+		MovingEntity pacman = new MovingEntity(new Rectangle(0, 0, 16, 16));
+		data.getUniverse().addGameEntity(wall);
+		data.getUniverse().addGameEntity(pacman);
+		viewPort.paint();
+		viewPort.paint();
+		assertEquals(1, wall.drawn);
+		assertEquals(2, pacman.drawn);
+	}
+
+	/* Can't draw an area of an image */
+	class FullFrameCanvas implements GameCanvas {
+		final GameCanvas canvas = new GameCanvasHeadlessImpl();
+
+		@Override
+		public Image createBuffer() {
+			return canvas.createBuffer();
+		}
+
+		@Override
+		public MediaTracker createMediaTracker() {
+			return canvas.createMediaTracker();
+		}
+
+		@Override
+		public void drawImage(Graphics graphics, Image image, int x, int y) {
+		}
+
+		@Override
+		public void drawFullSizeImage(Graphics graphics, Image image) {
+		}
+
+		@Override
+		public void drawFullSizeImage(Image buffer) {
+			fullFrames++;
+		}
+
+		@Override
+		public void setBounds(int x, int y, int width, int height) {
+			canvas.setBounds(x, y, width, height);
+		}
+
+		@Override
+		public int getWidth() {
+			return canvas.getWidth();
+		}
+
+		@Override
+		public int getHeight() {
+			return canvas.getHeight();
+		}
+
+		@Override
+		public void setSize(int width, int height) {
+			canvas.setSize(width, height);
+		}
+
+		@Override
+		public void addTo(Frame frame) {
+		}
+
+		@Override
+		public void addKeyListener(KeyListener keyStr) {
+		}
+
+		@Override
+		public void removeKeyListener(KeyListener keyStr) {
+		}
+
+		@Override
+		public KeyListener[] getKeyListeners() {
+			return new KeyListener[0];
+		}
+	}
+
+	static class Wall extends BoxEntity implements StaticDrawable {
+		Wall(Rectangle bounds) {
+			super(bounds);
+		}
+	}
+
+	static class BoxEntity implements GameEntity, ObjectWithBoundedBox {
+		Rectangle bounds;
+		int drawn = 0;
+
+		BoxEntity(Rectangle bounds) {
+			this.bounds = bounds;
+		}
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return bounds;
+		}
+
+		@Override
+		public void draw(Graphics g) {
+			drawn++;
+		}
+
+		@Override
+		public boolean isMovable() {
+			return false;
+		}
+	}
+
+	static class MovingEntity extends GameMovable implements GameEntity {
+		Rectangle bounds;
+		int drawn = 0;
+
+		MovingEntity(Rectangle bounds) {
+			this.bounds = bounds;
+		}
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return bounds;
+		}
+
+		@Override
+		public void draw(Graphics g) {
+			drawn++;
+		}
+
+		@Override
+		public void oneStepMoveAddedBehavior() {
+		}
+	}
+}
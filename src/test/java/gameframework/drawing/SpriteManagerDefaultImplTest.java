@@ -1,6 +1,7 @@
 package gameframework.drawing;
 
 import java.awt.Image;
+import java.awt.image.BufferedImage;
 import java.awt.Point;
 import java.awt.image.ImageObserver;
 
@@ -8,6 +9,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 public class SpriteManagerDefaultImplTest {
 
@@ -18,6 +20,7 @@ public class SpriteManagerDefaultImplTest {
 	int sourcePictureWidth = maxSpriteNumber * spriteSize;
 
 	int actualSourceX, actualSourceY;
+	Image actualImg;
 
 	DrawableImage image;
 	GameCanvas canvas;
@@ -33,6 +36,13 @@ public class SpriteManagerDefaultImplTest {
 				actualSourceY = sy1;
 				return false;
 			}
+
+			@Override
+			public boolean drawImage(Image img, int x, int y,
+					ImageObserver observer) {
+				actualImg = img;
+				return false;
+			}
 		};
 	}
 
@@ -119,4 +129,40 @@ public class SpriteManagerDefaultImplTest {
 		assertEquals(column * spriteSize, actualSourceX);
 	}
 
+	@Test
+	public void snapshotKeepsSprite() throws Exception {
+		manager.setType("bar");
+		manager.increment();
+		Drawable snapshot = manager.snapshot(new Point(0, 0));
+		manager.setType("foo");
+		manager.reset();
+
+		snapshot.draw(graphics);
+		assertEquals(spriteSize, actualSourceX);
+		assertEquals(spriteSize, actualSourceY);
+	}
+
+	@Test
+	public void prescaledSpritesAreShared() throws Exception {
+		manager.setPrescaled(true);
+		manager.setType("bar");
+		manager.increment();
+		manager.draw(graphics, new Point(0, 0));
+		SpriteAtlas atlas = SpriteAtlas.get(image, spriteSize, renderingSize);
+		assertSame(atlas.getSprite(1, 1), actualImg);
+		assertEquals(renderingSize, ((BufferedImage) actualImg).getWidth());
+
+		SpriteManagerDefaultImpl other = new SpriteManagerDefaultImpl(
+				new DrawableImage("/courbes.png", canvas) {
+					@Override
+					public int getWidth() {
+						return sourcePictureWidth;
+					}
+				}, renderingSize, maxSpriteNumber);
+		other.setTypes("foo", "bar");
+		other.setPrescaled(true);
+		other.draw(graphics, new Point(0, 0));
+		assertSame(atlas.getSprite(0, 0), actualImg);
+		SpriteAtlas.clearCache();
+	}
 }
@@ -0,0 +1,131 @@
+package gameframework.drawing;
+
+import gameframework.game.GameConfiguration;
+import gameframework.game.GameData;
+import gameframework.game.GameEntity;
+import gameframework.game.GameUniverseDefaultImpl;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StaticLayerTest {
+
+	GameUniverseDefaultImpl universe;
+	StaticLayer layer;
+	Tile[][] tiles = new Tile[8][8];
+	BufferedImage screen;
+
+	@Before
+	public void createLayer() {
+		GameConfiguration configuration = new GameConfiguration();
+		configuration.setHeadless(true);
+		universe = (GameUniverseDefaultImpl) new GameData(configuration)
+				.getUniverse();
+		for (int i = 0; i < 8; i++) {
+			for (int j = 0; j < 8; j++) {
+				tiles[i][j] = new Tile(new Rectangle(i * 16, j * 16, 16, 16));
+				universe.addGameEntity(tiles[i][j]);
+			}
+		}
+		layer = new StaticLayer(64);
+		layer.attach(universe);
+	}
+
+	@Test
+	public void entitiesAreDrawnOnce() {
+		draw();
+		draw();
+		assertEquals(4, layer.getChunkCount());
+		for (Tile[] column : tiles) {
+			for (Tile tile : column) {
+				assertEquals(1, tile.drawn);
+			}
+		}
+		assertEquals(Color.RED.getRGB(), screen.getRGB(100, 100));
+	}
+
+	@Test
+	public void removingAnEntityOnlyDrawsItsChunk() {
+		draw();
+		universe.removeGameEntity(tiles[0][0]);
+		assertFalse(layer.contains(tiles[0][0]));
+		draw();
+		assertEquals(2, tiles[1][1].drawn);
+		assertEquals(1, tiles[4][4].drawn);
+		assertEquals(0, screen.getRGB(8, 8));
+	}
+
+	@Test
+	public void onlyStaticDrawablesAreInTheLayer() {
+		GameEntity other = new GameEntity() {
+
+			@Override
+			public void draw(Graphics g) {
+			}
+
+			@Override
+			public boolean isMovable() {
+				return false;
+			}
+		};
+		universe.addGameEntity(other);
+		assertFalse(layer.contains(other));
+		assertTrue(layer.contains(tiles[3][3]));
+	}
+
+	@Test
+	public void emptyChunksAreDropped() {
+		for (int i = 0; i < 4; i++) {
+			for (int j = 0; j < 4; j++) {
+				universe.removeGameEntity(tiles[i][j]);
+			}
+		}
+		draw();
+		assertEquals(3, layer.getChunkCount());
+		layer.detach();
+		universe.removeGameEntity(tiles[7][7]);
+		assertEquals(0, layer.getChunkCount());
+	}
+
+	private void draw() {
+		screen = new BufferedImage(128, 128, BufferedImage.TYPE_INT_ARGB);
+		Graphics graphics = screen.getGraphics();
+		layer.draw(graphics, new Rectangle(128, 128));
+		graphics.dispose();
+	}
+
+	static class Tile implements GameEntity, StaticDrawable {
+		final Rectangle bounds;
+		int drawn = 0;
+
+		Tile(Rectangle bounds) {
+			this.bounds = bounds;
+		}
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return bounds;
+		}
+
+		@Override
+		public void draw(Graphics g) {
+			drawn++;
+			g.setColor(Color.RED);
+			g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+		}
+
+		@Override
+		public boolean isMovable() {
+			return false;
+		}
+	}
+}
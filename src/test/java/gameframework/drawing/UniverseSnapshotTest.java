@@ -0,0 +1,138 @@
+package gameframework.drawing;
+
+import gameframework.base.ObjectWithBoundedBox;
+import gameframework.game.GameEntity;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class UniverseSnapshotTest {
+
+	List<String> drawn = new ArrayList<String>();
+
+	@Test
+	public void snapshotsDoNotReadTheEntities() throws Exception {
+		SnapshotableEntity copied = new SnapshotableEntity();
+		Entity unbounded = new Entity();
+		copied.state = "before";
+		unbounded.state = "before";
+		UniverseSnapshot snapshot = UniverseSnapshot.take(Arrays
+				.<GameEntity> asList(copied, unbounded).iterator(), 3);
+		copied.state = "after";
+
+		snapshot.draw(null);
+		assertEquals(Arrays.asList("before"), drawn);
+		assertEquals(3, snapshot.getTick());
+	}
+
+	@Test
+	public void boundedEntitiesAreDrawnWhenTaken() throws Exception {
+		BoundedEntity moving = new BoundedEntity();
+		moving.bounds = new Rectangle(10, 20, 2, 2);
+		UniverseSnapshot snapshot = UniverseSnapshot.take(Arrays
+				.<GameEntity> asList(moving).iterator(), 0);
+		assertNotNull(moving.drawnAt);
+		moving.bounds = new Rectangle(14, 20, 2, 2);
+		moving.drawnAt = null;
+
+		BufferedImage image = new BufferedImage(20, 30,
+				BufferedImage.TYPE_INT_ARGB);
+		Graphics2D graphics = image.createGraphics();
+		snapshot.draw(graphics);
+		graphics.dispose();
+		assertNull(moving.drawnAt);
+		assertEquals(Color.RED.getRGB(), image.getRGB(11, 21));
+		assertEquals(0, image.getRGB(15, 21));
+	}
+
+	@Test
+	public void onlyEntitiesInTheAreaAreDrawn() throws Exception {
+		SnapshotableEntity inside = new SnapshotableEntity();
+		inside.state = "inside";
+		inside.bounds = new Rectangle(0, 0, 16, 16);
+		SnapshotableEntity outside = new SnapshotableEntity();
+		outside.state = "outside";
+		outside.bounds = new Rectangle(100, 0, 16, 16);
+		SnapshotableEntity unbounded = new SnapshotableEntity();
+		unbounded.state = "unbounded";
+		UniverseSnapshot snapshot = UniverseSnapshot.take(Arrays
+				.<GameEntity> asList(inside, outside, unbounded).iterator(), 0);
+
+		snapshot.draw(null, new Rectangle(0, 0, 50, 50));
+		assertEquals(Arrays.asList("inside", "unbounded"), drawn);
+	}
+
+	class Entity implements GameEntity {
+		String state;
+
+		@Override
+		public void draw(Graphics g) {
+			drawn.add(state);
+		}
+
+		@Override
+		public boolean isMovable() {
+			return true;
+		}
+	}
+
+	class BoundedEntity implements GameEntity, ObjectWithBoundedBox {
+		Rectangle bounds;
+		Point drawnAt;
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return bounds;
+		}
+
+		@Override
+		public void draw(Graphics g) {
+			AffineTransform transform = ((Graphics2D) g).getTransform();
+			drawnAt = new Point(bounds.x + (int) transform.getTranslateX(),
+					bounds.y + (int) transform.getTranslateY());
+			g.setColor(Color.RED);
+			g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+		}
+
+		@Override
+		public boolean isMovable() {
+			return true;
+		}
+	}
+
+	class SnapshotableEntity extends Entity implements Snapshotable,
+			ObjectWithBoundedBox {
+		Rectangle bounds;
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return bounds;
+		}
+
+		@Override
+		public Drawable snapshot() {
+			final String copy = state;
+			return new Drawable() {
+
+				@Override
+				public void draw(Graphics g) {
+					drawn.add(copy);
+				}
+			};
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package gameframework.game;
+
+import gameframework.game.GameUniverseDefaultImplTest.Movable;
+import gameframework.game.GameUniverseDefaultImplTest.Wall;
+import gameframework.game.mocks.MockGameEntity;
+import gameframework.motion.GameMovable;
+import gameframework.motion.blocking.MoveBlocker;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GameEntityRegistryTest {
+
+	GameEntityRegistry registry = new GameEntityRegistry();
+	GameData data = new GameData(new GameConfiguration());
+
+	@Test
+	public void entitiesSortedByCapabilities() {
+		Wall wall = new Wall(0, 0);
+		Movable movable = new Movable(data, 0, 0, new Point(1, 0));
+		MockGameEntity other = new MockGameEntity();
+		registry.add(wall);
+		registry.add(movable);
+		registry.add(other);
+
+		assertEquals(GameEntityRegistry.BLOCKER, registry.getCapabilities(wall));
+		assertEquals(GameEntityRegistry.MOVABLE,
+				registry.getCapabilities(movable));
+		assertEquals(Arrays.asList(movable), registry.getMovables());
+		assertTrue(registry.contains(wall));
+	}
+
+	@Test
+	public void entitiesByType() {
+		Wall wall1 = new Wall(0, 0);
+		Wall wall2 = new Wall(16, 0);
+		Movable movable = new Movable(data, 0, 0, new Point(1, 0));
+		registry.add(wall1);
+		registry.add(movable);
+		registry.add(wall2);
+
+		assertEquals(Arrays.asList(wall1, wall2), registry.getEntities(Wall.class));
+		assertEquals(Arrays.asList(movable),
+				registry.getEntities(GameMovable.class));
+		assertEquals(3, registry.getEntities(GameEntity.class).size());
+
+		registry.remove(wall1);
+		assertEquals(Arrays.asList(wall2), registry.getEntities(Wall.class));
+		assertFalse(registry.contains(wall1));
+	}
+
+	@Test
+	public void newClassAfterQuery() {
+		registry.add(new Wall(0, 0));
+		assertEquals(1, registry.getEntities(MoveBlocker.class).size());
+
+		MoveBlockingMock blocking = new MoveBlockingMock();
+		registry.add(blocking);
+		assertEquals(2, registry.getEntities(MoveBlocker.class).size());
+
+		registry.removeAll(Arrays.asList(blocking));
+		assertEquals(1, registry.getEntities(MoveBlocker.class).size());
+	}
+
+	@Test
+	public void removedDuringScanLeavesAHole() {
+		Movable first = new Movable(data, 0, 0, new Point(1, 0));
+		Movable second = new Movable(data, 0, 0, new Point(1, 0));
+		Movable third = new Movable(data, 0, 0, new Point(1, 0));
+		registry.add(first);
+		registry.add(second);
+
+		registry.beginScan();
+		registry.remove(first);
+		registry.add(third);
+		assertEquals(3, registry.getMovableCount());
+		assertNull(registry.getMovable(0));
+		assertSame(third, registry.getMovable(2));
+		registry.endScan();
+
+		assertEquals(Arrays.asList(second, third), registry.getMovables());
+	}
+
+	@Test
+	public void removalMovesTheLastOneInItsPlace() {
+		Movable first = new Movable(data, 0, 0, new Point(1, 0));
+		Movable second = new Movable(data, 0, 0, new Point(1, 0));
+		Movable third = new Movable(data, 0, 0, new Point(1, 0));
+		registry.add(first);
+		registry.add(second);
+		registry.add(third);
+
+		registry.remove(first);
+		assertEquals(Arrays.asList(third, second), registry.getMovables());
+		assertEquals(Arrays.asList(third, second),
+				registry.getEntities(Movable.class));
+		registry.remove(third);
+		assertEquals(Arrays.asList(second), registry.getMovables());
+		assertEquals(Arrays.asList(second), registry.getEntities(Movable.class));
+	}
+
+	@Test
+	public void removedFromTheMovablesAfterStoppingToMove() {
+		final boolean[] movable = { true };
+		Movable stopping = new Movable(data, 0, 0, new Point(1, 0)) {
+
+			@Override
+			public boolean isMovable() {
+				return movable[0];
+			}
+		};
+		registry.add(stopping);
+		movable[0] = false;
+		registry.remove(stopping);
+		assertTrue(registry.getMovables().isEmpty());
+	}
+
+	@Test
+	public void universeQueriesTheRegistry() {
+		GameUniverseDefaultImpl universe = new GameUniverseDefaultImpl(data);
+		Wall wall = new Wall(0, 0);
+		universe.addGameEntity(wall);
+		universe.addGameEntity(new MockGameEntity());
+		assertEquals(Arrays.asList(wall), universe.getGameEntities(Wall.class));
+		universe.removeAllGameEntities();
+		assertTrue(universe.getGameEntities(Wall.class).isEmpty());
+	}
+
+	static class MoveBlockingMock extends MockGameEntity implements MoveBlocker {
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return new Rectangle(0, 0, 1, 1);
+		}
+	}
+}
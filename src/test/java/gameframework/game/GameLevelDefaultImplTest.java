@@ -0,0 +1,126 @@
+package gameframework.game;
+
+import gameframework.drawing.GameUniverseViewPortHeadlessImpl;
+import gameframework.metrics.GameMetricsListener.Phase;
+import gameframework.metrics.GameMetricsRecorder;
+import gameframework.motion.GameMovable;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GameLevelDefaultImplTest {
+
+	int ticks = 0;
+
+	@Test(timeout = 10000)
+	public void headlessLevelRunsWithoutWaiting() throws Exception {
+		GameConfiguration configuration = new GameConfiguration();
+		configuration.setHeadless(true);
+		final GameData data = new GameData(configuration);
+		final int nbTicks = 1000;
+
+		GameLevelDefaultImpl level = new GameLevelDefaultImpl(data) {
+
+			@Override
+			protected void init() {
+				gameBoard = data.getConfiguration().createViewPort(data);
+				universe.addGameEntity(new CountingEntity(this, nbTicks));
+			}
+		};
+		level.start();
+
+		assertEquals(nbTicks, ticks);
+		assertTrue(data.getConfiguration().createViewPort(data) instanceof GameUniverseViewPortHeadlessImpl);
+	}
+
+	@Test(timeout = 10000)
+	public void ticksAreMeasured() throws Exception {
+		GameConfiguration configuration = new GameConfiguration();
+		configuration.setHeadless(true);
+		final GameData data = new GameData(configuration);
+		GameMetricsRecorder recorder = new GameMetricsRecorder();
+		data.setMetricsListener(recorder);
+		final int nbTicks = 100;
+
+		GameLevelDefaultImpl level = new GameLevelDefaultImpl(data) {
+
+			@Override
+			protected void init() {
+				gameBoard = data.getConfiguration().createViewPort(data);
+				universe.addGameEntity(new CountingEntity(this, nbTicks));
+			}
+		};
+		level.start();
+
+		assertEquals(nbTicks, recorder.getHistogram(Phase.TICK).getCount());
+		assertEquals(nbTicks, recorder.getHistogram(Phase.MOVES).getCount());
+		assertEquals(nbTicks, recorder.getHistogram(Phase.OVERLAPS).getCount());
+		assertEquals(0, recorder.getHistogram(Phase.PAINT).getCount());
+		assertTrue(recorder.getHistogram(Phase.TICK).getMax() > 0);
+	}
+
+	@Test(timeout = 10000)
+	public void framesArePaintedBetweenTicks() throws Exception {
+		final GameData data = new GameData(new GameConfiguration());
+		final List<Double> interpolations = new ArrayList<Double>();
+
+		GameLevelDefaultImpl level = new GameLevelDefaultImpl(data, 5000) {
+
+			@Override
+			protected void init() {
+				universe.addGameEntity(new CountingEntity(this, 2));
+			}
+
+			@Override
+			protected void paintFrame() {
+				interpolations.add(getInterpolation());
+				if (interpolations.size() == 5) {
+					end();
+				}
+			}
+		};
+		level.setFixedTimestep(true);
+		level.setMinimumDelayBetweenFrames(10);
+		level.start();
+
+		assertEquals(1, ticks);
+		assertEquals(5, interpolations.size());
+		for (int i = 1; i < interpolations.size(); i++) {
+			assertTrue(interpolations.get(i) > interpolations.get(i - 1));
+			assertTrue(interpolations.get(i) < 1);
+		}
+	}
+
+	class CountingEntity extends GameMovable implements GameEntity {
+		private final GameLevel level;
+		private final int nbTicks;
+
+		CountingEntity(GameLevel level, int nbTicks) {
+			this.level = level;
+			this.nbTicks = nbTicks;
+		}
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return new Rectangle(position.x, position.y, 16, 16);
+		}
+
+		@Override
+		public void oneStepMoveAddedBehavior() {
+			if (++ticks == nbTicks) {
+				level.end();
+			}
+		}
+
+		@Override
+		public void draw(Graphics g) {
+		}
+	}
+}
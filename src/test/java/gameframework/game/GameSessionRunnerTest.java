@@ -0,0 +1,157 @@
+package gameframework.game;
+
+import gameframework.motion.GameMovable;
+
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GameSessionRunnerTest {
+
+	GameSessionRunner runner = new GameSessionRunner(
+			Executors.newFixedThreadPool(2));
+	AtomicInteger ticks = new AtomicInteger();
+
+	@After
+	public void shutdown() {
+		runner.shutdown();
+	}
+
+	@Test(timeout = 10000)
+	public void runsManySessionsOnFewThreads() throws Exception {
+		int nbSessions = 100;
+		List<GameSessionRunner.GameSession> sessions = new ArrayList<GameSessionRunner.GameSession>();
+		for (int i = 0; i < nbSessions; i++) {
+			GameData data = createHeadlessData();
+			data.addLevel(createLevel(data, 20));
+			data.addLevel(createLevel(data, 30));
+			sessions.add(runner.start(data));
+		}
+		for (GameSessionRunner.GameSession session : sessions) {
+			session.awaitTermination();
+			assertNull(session.getFailure());
+			assertTrue(session.isDone());
+		}
+		assertEquals(nbSessions * 50, ticks.get());
+	}
+
+	@Test(timeout = 10000)
+	public void pacedByTheLevelDelay() throws Exception {
+		GameData data = new GameData(new GameConfiguration());
+		data.addLevel(new CountingLevel(data, 5, 20) {
+
+			@Override
+			protected void paintFrame() {
+			}
+		});
+		long start = System.nanoTime();
+		runner.start(data).awaitTermination();
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS
+				.toNanos(4 * 20));
+		assertEquals(5, ticks.get());
+	}
+
+	@Test(timeout = 10000)
+	public void failingTickEndsTheSession() throws Exception {
+		GameData data = createHeadlessData();
+		final RuntimeException failure = new RuntimeException();
+		data.addLevel(new CountingLevel(data, 10, 0) {
+
+			@Override
+			protected void tick() {
+				throw failure;
+			}
+		});
+		GameSessionRunner.GameSession session = runner.start(data);
+		session.awaitTermination();
+		assertEquals(failure, session.getFailure());
+	}
+
+	@Test(timeout = 10000)
+	public void shutdownEndsScheduledSessions() throws Exception {
+		List<GameSessionRunner.GameSession> sessions = new ArrayList<GameSessionRunner.GameSession>();
+		for (int i = 0; i < 4; i++) {
+			GameData data = new GameData(new GameConfiguration());
+			data.addLevel(new CountingLevel(data, 100, 1000) {
+
+				@Override
+				protected void paintFrame() {
+				}
+			});
+			sessions.add(runner.start(data));
+		}
+		while (ticks.get() < sessions.size()) {
+			Thread.sleep(1);
+		}
+		runner.shutdown();
+		for (GameSessionRunner.GameSession session : sessions) {
+			assertTrue(session.awaitTermination(5, TimeUnit.SECONDS));
+			assertNull(session.getFailure());
+		}
+	}
+
+	private GameData createHeadlessData() {
+		GameConfiguration configuration = new GameConfiguration();
+		configuration.setHeadless(true);
+		return new GameData(configuration);
+	}
+
+	private GameLevel createLevel(GameData data, int nbTicks) {
+		return new CountingLevel(data, nbTicks, 100);
+	}
+
+	class CountingLevel extends GameLevelDefaultImpl {
+		private final int nbTicks;
+
+		CountingLevel(GameData data, int nbTicks, int delay) {
+			super(data, delay);
+			this.nbTicks = nbTicks;
+		}
+
+		@Override
+		protected void init() {
+			universe.removeAllGameEntities();
+			gameBoard = data.getConfiguration().createViewPort(data);
+			universe.addGameEntity(new CountingEntity(this, nbTicks));
+		}
+	}
+
+	class CountingEntity extends GameMovable implements GameEntity {
+		private final GameLevel level;
+		private final int nbTicks;
+		private int count = 0;
+
+		CountingEntity(GameLevel level, int nbTicks) {
+			this.level = level;
+			this.nbTicks = nbTicks;
+		}
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return new Rectangle(position.x, position.y, 16, 16);
+		}
+
+		@Override
+		public void oneStepMoveAddedBehavior() {
+			ticks.incrementAndGet();
+			if (++count == nbTicks) {
+				level.end();
+			}
+		}
+
+		@Override
+		public void draw(Graphics g) {
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package gameframework.game;
+
+import gameframework.game.GameUniverseDefaultImplTest.Movable;
+import gameframework.game.GameUniverseDefaultImplTest.Wall;
+import gameframework.motion.GameMovableStore;
+import gameframework.motion.overlapping.Overlap;
+import gameframework.motion.overlapping.OverlapProcessor;
+import gameframework.motion.overlapping.OverlapProcessorDefaultImpl;
+import gameframework.motion.overlapping.OverlapProcessorSweepAndPruneImpl;
+import gameframework.motion.overlapping.OverlapRulesApplier;
+import gameframework.motion.overlapping.Overlappable;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GameUniverseArrayImplTest extends GameUniverseTest {
+
+	@Override
+	public GameUniverse createGameUniverse() {
+		return new GameUniverseArrayImpl(new GameData(new GameConfiguration()));
+	}
+
+	@Test
+	public void sameMovesAsDefaultUniverse() {
+		GameData data = new GameData(new GameConfiguration());
+		GameUniverseArrayImpl universe = new GameUniverseArrayImpl(data);
+		universe.addGameEntity(new Wall(18, 0));
+		Movable blocked = new Movable(data, 0, 0, new Point(1, 0));
+		Movable free = new Movable(data, 0, 40, new Point(1, 0));
+		universe.addGameEntity(blocked);
+		universe.addGameEntity(free);
+
+		universe.allOneStepMoves();
+		universe.allOneStepMoves();
+
+		assertEquals(new Point(0, 0), blocked.getPosition());
+		assertEquals(new Point(8, 40), free.getPosition());
+		assertSame(universe.getMovableStore(), free.getStore());
+	}
+
+	@Test
+	public void movableRemovedDuringMoves() {
+		GameData data = new GameData(new GameConfiguration());
+		final GameUniverseArrayImpl universe = new GameUniverseArrayImpl(data);
+		Movable leaving = new Movable(data, 0, 0, new Point(1, 0)) {
+
+			@Override
+			public void oneStepMoveAddedBehavior() {
+				universe.removeGameEntity(this);
+			}
+		};
+		Movable first = new Movable(data, 0, 40, new Point(1, 0));
+		Movable last = new Movable(data, 0, 80, new Point(1, 0));
+		universe.addGameEntity(first);
+		universe.addGameEntity(leaving);
+		universe.addGameEntity(last);
+
+		universe.allOneStepMoves();
+
+		assertEquals(new Point(4, 40), first.getPosition());
+		assertEquals(new Point(4, 80), last.getPosition());
+		assertNull(leaving.getStore());
+		assertEquals(2, universe.getMovableStore().size());
+		assertEquals(1, last.getStoreIndex());
+	}
+
+	@Test
+	public void overlapProcessorsReadTheStore() {
+		for (final OverlapProcessor processor : Arrays.<OverlapProcessor> asList(
+				new OverlapProcessorDefaultImpl(),
+				new OverlapProcessorSweepAndPruneImpl())) {
+			GameData data = new GameData(new GameConfiguration() {
+
+				@Override
+				public OverlapProcessor createOverlapProcessor() {
+					return processor;
+				}
+
+				@Override
+				public GameUniverse createUniverse(GameData gameData) {
+					return new GameUniverseArrayImpl(gameData);
+				}
+			});
+			GameUniverseArrayImpl universe = (GameUniverseArrayImpl) data
+					.getUniverse();
+			assertSame(universe.getMovableStore(), getMovableStore(processor));
+			assertOverlapsFound(data, universe);
+		}
+	}
+
+	private static GameMovableStore getMovableStore(OverlapProcessor processor) {
+		if (processor instanceof OverlapProcessorDefaultImpl) {
+			return ((OverlapProcessorDefaultImpl) processor).getMovableStore();
+		}
+		return ((OverlapProcessorSweepAndPruneImpl) processor)
+				.getMovableStore();
+	}
+
+	private static void assertOverlapsFound(GameData data,
+			GameUniverseArrayImpl universe) {
+		final Vector<Overlap> found = new Vector<Overlap>();
+		data.getOverlapProcessor().setOverlapRules(new OverlapRulesApplier() {
+
+			@Override
+			public void setGameData(GameData data) {
+			}
+
+			@Override
+			public void applyOverlapRules(Vector<Overlap> overlaps) {
+				found.addAll(overlaps);
+			}
+		});
+		OverlappableMovable moving = new OverlappableMovable(data, 0, 0);
+		OverlappableMovable still = new OverlappableMovable(data, 30, 0);
+		universe.addGameEntity(moving);
+		universe.addGameEntity(still);
+
+		universe.processAllOverlaps();
+		assertEquals(0, found.size());
+
+		// read from the store once refreshed
+		moving.setPosition(new Point(20, 0));
+		universe.processAllOverlaps();
+		assertEquals(1, found.size());
+	}
+
+	static class OverlappableMovable extends Movable implements Overlappable {
+
+		OverlappableMovable(GameData data, int x, int y) {
+			super(data, x, y, new Point(0, 0));
+		}
+	}
+}
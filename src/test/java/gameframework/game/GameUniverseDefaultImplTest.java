@@ -1,5 +1,28 @@
 package gameframework.game;
 
+import gameframework.motion.GameMovable;
+import gameframework.motion.GameMovableDriverDefaultImpl;
+import gameframework.motion.MoveStrategy;
+import gameframework.motion.SpeedVector;
+import gameframework.motion.blocking.MoveBlocker;
+import gameframework.motion.blocking.MoveBlockerChecker;
+import gameframework.motion.blocking.MoveBlockerRulesApplier;
+
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
 public class GameUniverseDefaultImplTest extends GameUniverseTest {
 
 	@Override
@@ -7,4 +30,271 @@ public class GameUniverseDefaultImplTest extends GameUniverseTest {
 		return new GameUniverseDefaultImpl(new GameData(new GameConfiguration()));
 	}
 
+	@Test
+	public void batchedMoves() {
+		GameData data = new GameData(new GameConfiguration());
+		GameUniverseDefaultImpl universe = new GameUniverseDefaultImpl(data);
+		universe.setBatchedMoves(true);
+		universe.addGameEntity(new Wall(18, 0));
+
+		Movable blocked = new Movable(data, 0, 0, new Point(1, 0));
+		Movable keepsItsVector = new Movable(data, 0, 40, new Point(1, 0));
+		keepsItsVector.setSpeedVector(new SpeedVector(new Point(0, 1), 4));
+		universe.addGameEntity(new Wall(18, 40));
+		Movable free = new Movable(data, 0, 80, new Point(0, 1));
+		Movable withOwnDriver = new Movable(data, 40, 0, new Point(0, 1));
+		((GameMovableDriverDefaultImpl) withOwnDriver.getDriver())
+				.setmoveBlockerChecker(data.getConfiguration()
+						.createMoveBlockerChecker());
+		universe.addGameEntity(blocked);
+		universe.addGameEntity(keepsItsVector);
+		universe.addGameEntity(free);
+		universe.addGameEntity(withOwnDriver);
+
+		universe.allOneStepMoves();
+
+		assertEquals(new Point(0, 0), blocked.getPosition());
+		assertEquals(new Point(0, 44), keepsItsVector.getPosition());
+		assertEquals(new Point(0, 84), free.getPosition());
+		assertEquals(new Point(40, 4), withOwnDriver.getPosition());
+	}
+
+	@Test
+	public void batchedMovesSkipSubclassesOfTheDriver() {
+		GameData data = new GameData(new GameConfiguration());
+		GameUniverseDefaultImpl universe = new GameUniverseDefaultImpl(data);
+		universe.setBatchedMoves(true);
+		Movable stopped = new Movable(data, 0, 0, new Point(1, 0));
+		GameMovableDriverDefaultImpl driver = new GameMovableDriverDefaultImpl() {
+
+			@Override
+			public SpeedVector getSpeedVector(GameMovable movable) {
+				return SpeedVector.createNullVector();
+			}
+		};
+		driver.setmoveBlockerChecker(data.getMoveBlockerChecker());
+		stopped.setDriver(driver);
+		universe.addGameEntity(stopped);
+
+		universe.allOneStepMoves();
+
+		assertEquals(new Point(0, 0), stopped.getPosition());
+	}
+
+	@Test
+	public void deferredChanges() {
+		GameData data = new GameData(new GameConfiguration());
+		final GameUniverseDefaultImpl universe = new GameUniverseDefaultImpl(
+				data);
+		universe.setDeferredChanges(true);
+		final Wall added = new Wall(100, 100);
+		final List<Integer> seen = new ArrayList<Integer>();
+		Movable leaving = new Movable(data, 0, 0, new Point(1, 0)) {
+
+			@Override
+			public void oneStepMoveAddedBehavior() {
+				universe.removeGameEntity(this);
+				universe.addGameEntity(added);
+				seen.add(count(universe));
+			}
+		};
+		Movable staying = new Movable(data, 0, 40, new Point(1, 0)) {
+
+			@Override
+			public void oneStepMoveAddedBehavior() {
+				seen.add(count(universe));
+			}
+		};
+		universe.addGameEntity(leaving);
+		universe.addGameEntity(staying);
+
+		universe.allOneStepMoves();
+
+		assertEquals(Arrays.asList(2, 2), seen);
+		Iterator<GameEntity> entities = universe.getGameEntitiesIterator();
+		assertSame(staying, entities.next());
+		assertSame(added, entities.next());
+		assertFalse(entities.hasNext());
+		assertEquals(new Point(4, 40), staying.getPosition());
+	}
+
+	@Test
+	public void changesDuringMovesAreSeenByTheSameTick() {
+		GameData data = new GameData(new GameConfiguration());
+		final GameUniverseDefaultImpl universe = new GameUniverseDefaultImpl(
+				data);
+		final Movable removed = new Movable(data, 0, 40, new Point(1, 0));
+		final Movable added = new Movable(data, 0, 80, new Point(1, 0));
+		universe.addGameEntity(new Movable(data, 0, 0, new Point(1, 0)) {
+
+			@Override
+			public void oneStepMoveAddedBehavior() {
+				universe.removeGameEntity(removed);
+				universe.addGameEntity(added);
+			}
+		});
+		universe.addGameEntity(removed);
+
+		universe.allOneStepMoves();
+
+		assertEquals(new Point(0, 40), removed.getPosition());
+		assertEquals(new Point(4, 80), added.getPosition());
+	}
+
+	@Test
+	public void deferredChangesUseIdentity() {
+		GameData data = new GameData(new GameConfiguration());
+		final GameUniverseDefaultImpl universe = new GameUniverseDefaultImpl(
+				data);
+		universe.setDeferredChanges(true);
+		final Wall added = new EqualWall(100, 100);
+		final Wall removed = new EqualWall(0, 100);
+		universe.addGameEntity(removed);
+		universe.addGameEntity(new Movable(data, 0, 0, new Point(1, 0)) {
+
+			@Override
+			public void oneStepMoveAddedBehavior() {
+				universe.addGameEntity(added);
+				universe.removeGameEntity(removed);
+			}
+		});
+
+		universe.allOneStepMoves();
+
+		Iterator<GameEntity> entities = universe.getGameEntitiesIterator();
+		entities.next();
+		assertSame(added, entities.next());
+		assertFalse(entities.hasNext());
+	}
+
+	@Test
+	public void blockersRemovedOneByOneFromOtherCheckers() {
+		final List<MoveBlocker> removed = new ArrayList<MoveBlocker>();
+		GameData data = new GameData(new GameConfiguration() {
+
+			@Override
+			public MoveBlockerChecker createMoveBlockerChecker() {
+				return new MoveBlockerChecker() {
+
+					@Override
+					public void addMoveBlocker(MoveBlocker blocker) {
+					}
+
+					@Override
+					public void removeMoveBlocker(MoveBlocker blocker) {
+						removed.add(blocker);
+					}
+
+					@Override
+					public void setMoveBlockerRules(
+							MoveBlockerRulesApplier moveBlockerRules) {
+					}
+
+					@Override
+					public boolean moveValidation(GameMovable movable,
+							SpeedVector requestedSpeedVector) {
+						return true;
+					}
+				};
+			}
+		});
+		GameUniverseDefaultImpl universe = new GameUniverseDefaultImpl(data);
+		Wall first = new Wall(0, 0);
+		Wall second = new Wall(40, 0);
+		universe.addGameEntity(first);
+		universe.addGameEntity(second);
+
+		universe.removeGameEntities(Arrays.<GameEntity> asList(first, second));
+
+		assertEquals(2, removed.size());
+		assertTrue(removed.containsAll(Arrays.asList(first, second)));
+		assertEquals(0, count(universe));
+	}
+
+	static int count(GameUniverse universe) {
+		int count = 0;
+		for (Iterator<GameEntity> it = universe.getGameEntitiesIterator(); it
+				.hasNext(); it.next()) {
+			count++;
+		}
+		return count;
+	}
+
+	static class Wall implements GameEntity, MoveBlocker {
+		private final Rectangle boundingBox;
+
+		Wall(int x, int y) {
+			boundingBox = new Rectangle(x, y, 16, 16);
+		}
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return boundingBox;
+		}
+
+		@Override
+		public boolean isMovable() {
+			return false;
+		}
+
+		@Override
+		public void draw(Graphics g) {
+		}
+	}
+
+	/* Equal to any other wall of its class */
+	static class EqualWall extends Wall {
+
+		EqualWall(int x, int y) {
+			super(x, y);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof EqualWall;
+		}
+
+		@Override
+		public int hashCode() {
+			return 0;
+		}
+	}
+
+	static class Movable extends GameMovable implements GameEntity {
+
+		Movable(GameData data, int x, int y, final Point direction) {
+			setPosition(new Point(x, y));
+			GameMovableDriverDefaultImpl driver = (GameMovableDriverDefaultImpl) getDriver();
+			driver.setmoveBlockerChecker(data.getMoveBlockerChecker());
+			driver.setStrategy(new MoveStrategy() {
+
+				@Override
+				public SpeedVector getSpeedVector() {
+					return new SpeedVector(direction, 4);
+				}
+
+				@Override
+				public int getSpeed() {
+					return 4;
+				}
+
+				@Override
+				public void setSpeed(int speed) {
+				}
+			});
+		}
+
+		@Override
+		public Rectangle getBoundingBox() {
+			return new Rectangle(position.x, position.y, 16, 16);
+		}
+
+		@Override
+		public void oneStepMoveAddedBehavior() {
+		}
+
+		@Override
+		public void draw(Graphics g) {
+		}
+	}
 }
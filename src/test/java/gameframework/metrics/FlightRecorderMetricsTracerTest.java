@@ -0,0 +1,69 @@
+package gameframework.metrics;
+
+import gameframework.metrics.GameMetricsTracer.Span;
+
+import java.io.File;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class FlightRecorderMetricsTracerTest {
+
+	FlightRecorderMetricsTracer tracer = new FlightRecorderMetricsTracer();
+
+	@Test
+	public void enabledEventsLastAsLongAsTheirSpan() throws Exception {
+		File file = File.createTempFile("game", ".jfr");
+		try {
+			Recording recording = new Recording();
+			recording.enable("gameframework.Tick");
+			recording.enable("gameframework.Overlaps");
+			recording.start();
+			Object tick = tracer.started(Span.TICK);
+			Object overlaps = tracer.started(Span.OVERLAPS);
+			Thread.sleep(5);
+			tracer.ended(overlaps, 30, 7);
+			tracer.ended(tick, 12, 0);
+			assertNull(tracer.started(Span.MOVE_VALIDATION));
+			recording.stop();
+			recording.dump(file.toPath());
+			recording.close();
+
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file
+					.toPath());
+			int ticks = 0, overlapEvents = 0;
+			for (RecordedEvent event : events) {
+				String name = event.getEventType().getName();
+				if (name.equals("gameframework.Tick")) {
+					assertTrue(event.getDuration().toMillis() >= 5);
+					assertEquals(12, event.getLong("entities"));
+					ticks++;
+				} else if (name.equals("gameframework.Overlaps")) {
+					assertTrue(event.getDuration().toMillis() >= 5);
+					assertEquals(30, event.getLong("overlappables"));
+					assertEquals(7, event.getLong("overlaps"));
+					overlapEvents++;
+				} else if (name.startsWith("gameframework.")) {
+					throw new AssertionError("Disabled event recorded: " + name);
+				}
+			}
+			assertEquals(1, ticks);
+			assertEquals(1, overlapEvents);
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void nothingIsTracedWithoutRecording() {
+		assertNull(tracer.started(Span.TICK));
+	}
+}
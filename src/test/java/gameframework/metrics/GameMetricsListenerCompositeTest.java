@@ -0,0 +1,34 @@
+package gameframework.metrics;
+
+import gameframework.game.GameConfiguration;
+import gameframework.game.GameData;
+import gameframework.metrics.GameMetricsListener.Counter;
+import gameframework.metrics.GameMetricsListener.Phase;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GameMetricsListenerCompositeTest {
+
+	@Test
+	public void listenersAddedToTheGameAllReceiveTheMeasures() {
+		GameData data = new GameData(new GameConfiguration());
+		GameMetricsRecorder first = new GameMetricsRecorder();
+		GameMetricsRecorder second = new GameMetricsRecorder();
+		data.addMetricsListener(first);
+		assertSame(first, data.getMetricsListener());
+		data.addMetricsListener(second);
+		assertTrue(data.getMetricsListener() instanceof GameMetricsListenerComposite);
+
+		data.getMetricsListener().phaseTimed(Phase.TICK, 10);
+		data.getMetricsListener().counted(Counter.BLOCKER_CHECKS, 3);
+		for (GameMetricsRecorder recorder : new GameMetricsRecorder[] {
+				first, second }) {
+			assertEquals(1, recorder.getHistogram(Phase.TICK).getCount());
+			assertEquals(3, recorder.getCount(Counter.BLOCKER_CHECKS));
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package gameframework.metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class HistogramTest {
+
+	Histogram histogram = new Histogram();
+
+	@Test
+	public void emptyHistogram() {
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(99));
+		assertEquals(0, histogram.getMax());
+	}
+
+	@Test
+	public void smallValuesAreExact() {
+		for (int i = 1; i <= 10; i++) {
+			histogram.record(i);
+		}
+		assertEquals(10, histogram.getCount());
+		assertEquals(5, histogram.getPercentile(50));
+		assertEquals(10, histogram.getPercentile(99));
+		assertEquals(10, histogram.getMax());
+		assertEquals(5.5, histogram.getMean(), 0);
+	}
+
+	@Test
+	public void percentilesWithinPrecision() {
+		for (long i = 1; i <= 100000; i++) {
+			histogram.record(i * 1000);
+		}
+		assertClose(50000000, histogram.getPercentile(50));
+		assertClose(99000000, histogram.getPercentile(99));
+		assertEquals(100000000, histogram.getMax());
+	}
+
+	@Test
+	public void bucketsCoverEveryValue() {
+		long[] values = { 0, 1, 15, 16, 17, 31, 32, 1000, 123456789,
+				Long.MAX_VALUE };
+		for (long value : values) {
+			int bucket = Histogram.bucket(value);
+			assertTrue(value <= Histogram.bucketMax(bucket));
+			assertTrue(bucket == 0 || value > Histogram.bucketMax(bucket - 1));
+		}
+	}
+
+	@Test
+	public void reset() {
+		histogram.record(42);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getMax());
+	}
+
+	private static void assertClose(long expected, long actual) {
+		assertTrue(actual + " instead of " + expected,
+				Math.abs(actual - expected) <= expected / 16);
+	}
+}
@@ -0,0 +1,110 @@
+package gameframework.motion;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GameMovableStoreTest {
+
+	GameMovableStore store = new GameMovableStore();
+
+	@Test
+	public void storesTheGeometry() {
+		GameMovable movable = newMovable(10, 20);
+		movable.setSpeedVector(new SpeedVector(new Point(1, -1), 3));
+		store.add(movable);
+
+		assertSame(store, movable.getStore());
+		assertEquals(0, movable.getStoreIndex());
+		assertEquals(10, store.getX(0));
+		assertEquals(20, store.getY(0));
+		assertEquals(8, store.getWidth(0));
+		assertEquals(4, store.getHeight(0));
+		assertEquals(3, store.getMoveX(0));
+		assertEquals(-3, store.getMoveY(0));
+
+		SweptBox fromStore = store.getLastMove(0, new SweptBox());
+		SweptBox computed = new SweptBox().setLastMove(movable);
+		assertEquals(computed.getBounds(), fromStore.getBounds());
+	}
+
+	@Test
+	public void storedMovablesAreReadUntilUpdated() {
+		GameMovable movable = newMovable(10, 20);
+		store.add(movable);
+		movable.setPosition(new Point(30, 20));
+
+		assertEquals(10, store.getLastMove(0, new SweptBox()).getBounds().x);
+		assertEquals(30, new SweptBox().setLastMove(movable).getBounds().x);
+		store.updateAll();
+		assertEquals(30, store.getX(0));
+	}
+
+	@Test
+	public void removeMovesTheLastOne() {
+		GameMovable first = newMovable(0, 0);
+		GameMovable second = newMovable(1, 0);
+		GameMovable third = newMovable(2, 0);
+		store.add(first);
+		store.add(second);
+		store.add(third);
+
+		store.remove(first);
+
+		assertEquals(2, store.size());
+		assertSame(third, store.get(0));
+		assertEquals(0, third.getStoreIndex());
+		assertEquals(2, store.getX(0));
+		assertEquals(-1, first.getStoreIndex());
+	}
+
+	@Test
+	public void removeDuringScanLeavesAHole() {
+		GameMovable first = newMovable(0, 0);
+		GameMovable second = newMovable(1, 0);
+		store.add(first);
+		store.add(second);
+
+		store.beginScan();
+		store.remove(first);
+		assertEquals(2, store.size());
+		assertNull(store.get(0));
+		assertFalse(store.isAlive(0));
+		assertTrue(store.isAlive(1));
+		store.endScan();
+
+		assertEquals(1, store.size());
+		assertSame(second, store.get(0));
+		assertEquals(0, second.getStoreIndex());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void movableInOneStoreOnly() {
+		GameMovable movable = newMovable(0, 0);
+		store.add(movable);
+		new GameMovableStore().add(movable);
+	}
+
+	private static GameMovable newMovable(int x, int y) {
+		GameMovable movable = new GameMovable() {
+
+			@Override
+			public Rectangle getBoundingBox() {
+				return new Rectangle(position.x, position.y, 8, 4);
+			}
+
+			@Override
+			public void oneStepMoveAddedBehavior() {
+			}
+		};
+		movable.setPosition(new Point(x, y));
+		return movable;
+	}
+}
@@ -5,10 +5,13 @@ import java.awt.Point;
 import java.awt.Polygon;
 import java.awt.Rectangle;
 import java.awt.Shape;
+import java.awt.geom.Area;
+import java.util.Random;
 
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -106,6 +109,42 @@ public class IntersectToolsTest extends GameMovable {
 				new Point(0, 0));
 	}
 
+	@Test
+	public void diagonalShapeCoversTheBoxAfterTheMove() throws Exception {
+		direction = new Point(1, 1);
+		Area shape = new Area(createIntersectionShape());
+		assertTrue(shape.contains(new Rectangle(speed, speed, width, height)));
+		assertTrue(shape.contains(new Rectangle(0, 0, width, height)));
+	}
+
+	@Test
+	public void sweptBoxesAgreeWithAreas() throws Exception {
+		Random random = new Random(42);
+		for (int i = 0; i < 10000; i++) {
+			SweptBox box1 = randomSweptBox(random);
+			SweptBox box2 = randomSweptBox(random);
+			assertEquals(box1.intersectsUsingArea(box2), box1.intersects(box2));
+		}
+	}
+
+	@Test
+	public void sweptBoxesOnlyTouching() throws Exception {
+		SweptBox box = new SweptBox(0, 0, 10, 10, 5, 5);
+		assertFalse(box.intersects(new Rectangle(15, 0, 10, 10)));
+		assertFalse(box.intersects(new Rectangle(0, 15, 10, 10)));
+		assertTrue(box.intersects(new Rectangle(14, 14, 10, 10)));
+		// the corners of the hexagon are cut
+		assertFalse(box.intersects(new Rectangle(13, 0, 2, 2)));
+		assertFalse(box.intersects(new Rectangle(0, 13, 2, 2)));
+	}
+
+	private SweptBox randomSweptBox(Random random) {
+		return new SweptBox(random.nextInt(40), random.nextInt(40),
+				1 + random.nextInt(16), 1 + random.nextInt(16),
+				(random.nextInt(3) - 1) * random.nextInt(9),
+				(random.nextInt(3) - 1) * random.nextInt(9));
+	}
+
 	private void assertShape(Point... points) {
 		Shape intersectShape = createIntersectionShape();
 		assertTrue(intersectShape instanceof Polygon);
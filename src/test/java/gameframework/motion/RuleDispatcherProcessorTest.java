@@ -0,0 +1,158 @@
+package gameframework.motion;
+
+import gameframework.motion.blocking.BlockerRule;
+import gameframework.motion.blocking.MoveBlocker;
+import gameframework.motion.blocking.MoveBlockerRulesApplierDefaultImpl;
+import gameframework.motion.overlapping.Overlap;
+import gameframework.motion.overlapping.OverlapRule;
+import gameframework.motion.overlapping.OverlapRulesApplierDefaultImpl;
+import gameframework.motion.overlapping.Overlappable;
+import gameframework.motion.overlapping.mocks.OverlappableMock;
+import gameframework.motion.overlapping.mocks.OverlappableMovableMock;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The dispatchers used here are generated from the annotated rules below when
+ * the tests are compiled.
+ */
+public class RuleDispatcherProcessorTest {
+
+	private final OverlappableMock overlappable = new OverlappableMock();
+	private final OverlappableMovableMock overlappableMovable = new OverlappableMovableMock();
+
+	@Test
+	public void mostSpecificOverlapRule() {
+		CountingOverlapRules rules = new CountingOverlapRulesDispatcher();
+		applyOverlap(rules, overlappableMovable, overlappable);
+		assertEquals(1, rules.specific);
+		assertEquals(0, rules.general);
+	}
+
+	@Test
+	public void overlapRuleInReverseOrder() {
+		CountingOverlapRules rules = new CountingOverlapRulesDispatcher();
+		applyOverlap(rules, overlappable, overlappableMovable);
+		assertEquals(1, rules.specific);
+	}
+
+	@Test
+	public void overlapRuleForSupertype() {
+		CountingOverlapRules rules = new CountingOverlapRulesDispatcher();
+		applyOverlap(rules, overlappable, overlappable);
+		assertEquals(0, rules.specific);
+		assertEquals(1, rules.general);
+	}
+
+	@Test
+	public void noOverlapRule() {
+		CountingOverlapRules rules = new CountingOverlapRulesDispatcher();
+		applyOverlap(rules, overlappableMovable, overlappableMovable);
+		assertEquals(0, rules.specific + rules.general);
+	}
+
+	@Test
+	public void blockerRules() throws Exception {
+		CountingBlockerRules rules = new CountingBlockerRulesDispatcher(true);
+		Vector<MoveBlocker> blockers = new Vector<MoveBlocker>(
+				Arrays.<MoveBlocker> asList(new Wall()));
+		assertTrue(rules.moveValidationProcessing(new Ghost(), blockers));
+		assertEquals(1, rules.rulesApplied);
+
+		rules.ghostsCrossWalls = false;
+		assertFalse(rules.moveValidationProcessing(new Ghost(), blockers));
+		assertEquals(2, rules.rulesApplied);
+	}
+
+	@Test
+	public void defaultBlockerRule() throws Exception {
+		CountingBlockerRules rules = new CountingBlockerRulesDispatcher(true);
+		Vector<MoveBlocker> blockers = new Vector<MoveBlocker>(
+				Arrays.<MoveBlocker> asList(new Wall()));
+		assertFalse(rules.moveValidationProcessing(new GameMovable() {
+
+			@Override
+			public Rectangle getBoundingBox() {
+				return null;
+			}
+
+			@Override
+			public void oneStepMoveAddedBehavior() {
+			}
+		}, blockers));
+		assertEquals(0, rules.rulesApplied);
+	}
+
+	private void applyOverlap(OverlapRulesApplierDefaultImpl rules,
+			Overlappable overlappable1, Overlappable overlappable2) {
+		rules.applyOverlapRules(new Vector<Overlap>(Arrays.asList(new Overlap(
+				overlappable1, overlappable2))));
+	}
+}
+
+class CountingOverlapRules extends OverlapRulesApplierDefaultImpl {
+	int specific = 0;
+	int general = 0;
+
+	@OverlapRule
+	public void movableMeetsStill(OverlappableMovableMock movable,
+			OverlappableMock still) {
+		specific++;
+	}
+
+	@OverlapRule
+	void anythingMeetsStill(Overlappable overlappable, OverlappableMock still) {
+		general++;
+	}
+}
+
+class CountingBlockerRules extends MoveBlockerRulesApplierDefaultImpl {
+	boolean ghostsCrossWalls;
+	int rulesApplied = 0;
+
+	CountingBlockerRules(boolean ghostsCrossWalls) {
+		this.ghostsCrossWalls = ghostsCrossWalls;
+	}
+
+	@BlockerRule
+	public void ghostMeetsWall(Ghost ghost, Wall wall)
+			throws IllegalMoveException {
+		rulesApplied++;
+		if (!ghostsCrossWalls) {
+			throw new IllegalMoveException();
+		}
+	}
+}
+
+class Ghost extends GameMovable {
+
+	@Override
+	public Rectangle getBoundingBox() {
+		return null;
+	}
+
+	@Override
+	public void oneStepMoveAddedBehavior() {
+	}
+}
+
+class Wall implements MoveBlocker {
+
+	@Override
+	public Rectangle getBoundingBox() {
+		return null;
+	}
+
+	@Override
+	public boolean isMovable() {
+		return false;
+	}
+}
@@ -43,7 +43,7 @@ public class MoveBlockerCheckerDefaultImplTest {
 
 	@Before
 	public void createChecker() {
-		checker = new MoveBlockerCheckerDefaultImpl();
+		checker = newChecker();
 		checker.setMoveBlockerRules(new MoveBlockerRulesApplier() {
 
 			@Override
@@ -60,11 +60,15 @@ public class MoveBlockerCheckerDefaultImplTest {
 		});
 	}
 
+	protected MoveBlockerCheckerDefaultImpl newChecker() {
+		return new MoveBlockerCheckerDefaultImpl();
+	}
+
 	public void setSpeedVector(int x, int y, int speed) {
 		speedVector = new SpeedVector(new Point(x, y), speed);
 	}
 
-	private MoveBlocker createMoveBlocker(final int x, final int y,
+	protected MoveBlocker createMoveBlocker(final int x, final int y,
 			final int width, final int height) {
 		return new MoveBlocker() {
 
@@ -119,6 +123,17 @@ public class MoveBlockerCheckerDefaultImplTest {
 		denyMoveValidated(blocker);
 	}
 
+	@Test
+	public void blockedDiagonallyWithExactIntersection() throws Exception {
+		MoveBlocker blocker = createMoveBlocker(width, height, 10, 10);
+		checker.addMoveBlocker(blocker);
+		checker.addMoveBlocker(createMoveBlocker(width + 2, 0, 3, 1));
+		setSpeedVector(1, 1, 5);
+		denyMoveValidated(blocker);
+		checker.setExactIntersection(true);
+		denyMoveValidated(blocker);
+	}
+
 	@Test
 	public void validateWhenBlockerIsRemoved() throws Exception {
 		MoveBlocker blocker = createMoveBlocker(width, 0, 10, 10);
@@ -129,6 +144,17 @@ public class MoveBlockerCheckerDefaultImplTest {
 		assertMoveValidated();
 	}
 	
+	@Test
+	public void validateWhenSeveralBlockersAreRemoved() throws Exception {
+		MoveBlocker blocker = createMoveBlocker(width, 0, 10, 10);
+		MoveBlockerMovable movableBlocker = createMoveBlockerMovable();
+		checker.addMoveBlocker(blocker);
+		checker.addMoveBlocker(movableBlocker);
+		setSpeedVector(1, 0, 1);
+		checker.removeMoveBlockers(Arrays.asList(blocker, movableBlocker));
+		assertMoveValidated();
+	}
+
 	@Test
 	public void assertPlayerIsNotBlockingItself(){
 		setSpeedVector(1, 1, 1);
@@ -0,0 +1,139 @@
+package gameframework.motion.blocking;
+
+import gameframework.game.GameData;
+import gameframework.motion.GameMovable;
+import gameframework.motion.SpeedVector;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Random;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MoveBlockerCheckerGridImplTest extends
+		MoveBlockerCheckerDefaultImplTest {
+
+	GameMovable[] movables;
+	SpeedVector[] speedVectors;
+	boolean[] expected;
+
+	@Override
+	protected MoveBlockerCheckerDefaultImpl newChecker() {
+		return new MoveBlockerCheckerGridImpl(16);
+	}
+
+	@Test
+	public void dontValidateWhenBlockerIsOnNegativeCoordinates()
+			throws Exception {
+		MoveBlocker blocker = createMoveBlocker(-10, 0, 10, 10);
+		checker.addMoveBlocker(blocker);
+		setSpeedVector(-1, 0, 1);
+		denyMoveValidated(blocker);
+	}
+
+	@Test
+	public void dontValidateWithMovableAndIndexedBlockers() throws Exception {
+		MoveBlocker wall = createMoveBlocker(width, 0, 16, 16);
+		MoveBlockerMovable blocker = createMoveBlockerMovable();
+		checker.addMoveBlocker(wall);
+		checker.addMoveBlocker(createMoveBlocker(width + 32, 0, 16, 16));
+		checker.addMoveBlocker(blocker);
+		setSpeedVector(1, 0, 1);
+		denyMoveValidated(wall, blocker);
+	}
+
+	@Test
+	public void sameValidationsAllAtOnce() throws Exception {
+		int count = 4 * MoveBlockerCheckerGridImpl.PARALLEL_THRESHOLD;
+		createRandomMoves(count);
+		boolean[] results = new boolean[count + 1];
+		checker.moveValidationAll(movables, speedVectors, count, results);
+
+		boolean someBlocked = false;
+		for (int i = 0; i < count; i++) {
+			assertEquals(expected[i], results[i]);
+			someBlocked |= !expected[i];
+		}
+		assertTrue(someBlocked);
+	}
+
+	@Test
+	public void sameValidationsFromSeveralThreads() throws Exception {
+		final int count = 4 * MoveBlockerCheckerGridImpl.PARALLEL_THRESHOLD;
+		createRandomMoves(count);
+		final boolean[][] results = new boolean[4][count];
+		Thread[] threads = new Thread[results.length];
+		for (int t = 0; t < threads.length; t++) {
+			final boolean[] threadResults = results[t];
+			threads[t] = new Thread() {
+				@Override
+				public void run() {
+					for (int i = 0; i < count; i++) {
+						threadResults[i] = checker.moveValidation(movables[i],
+								speedVectors[i]);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		for (boolean[] threadResults : results) {
+			for (int i = 0; i < count; i++) {
+				assertEquals(expected[i], threadResults[i]);
+			}
+		}
+	}
+
+	/*
+	 * Blocks every move by random blockers, and validates the random moves
+	 * one after the other into expected
+	 */
+	private void createRandomMoves(int count) {
+		checker.setMoveBlockerRules(new MoveBlockerRulesApplier() {
+
+			@Override
+			public boolean moveValidationProcessing(GameMovable m,
+					Vector<MoveBlocker> blockers) {
+				return false;
+			}
+
+			@Override
+			public void setGameData(GameData gameData) {
+			}
+		});
+		Random random = new Random(42);
+		for (int i = 0; i < 300; i++) {
+			checker.addMoveBlocker(createMoveBlocker(
+					random.nextInt(800) - 400, random.nextInt(800) - 400, 16,
+					16));
+		}
+		movables = new GameMovable[count];
+		speedVectors = new SpeedVector[count];
+		expected = new boolean[count];
+		for (int i = 0; i < count; i++) {
+			final Rectangle box = new Rectangle(random.nextInt(800) - 400,
+					random.nextInt(800) - 400, 16, 16);
+			movables[i] = new GameMovable() {
+
+				@Override
+				public Rectangle getBoundingBox() {
+					return box;
+				}
+
+				@Override
+				public void oneStepMoveAddedBehavior() {
+				}
+			};
+			movables[i].setPosition(box.getLocation());
+			speedVectors[i] = new SpeedVector(new Point(
+					random.nextInt(3) - 1, random.nextInt(3) - 1), 8);
+			expected[i] = checker.moveValidation(movables[i], speedVectors[i]);
+		}
+	}
+}
@@ -52,6 +52,99 @@ public class MoveBlockerRulesApplierDefaultImplTest {
 		assertEquals(1, rulesApplied);
 	}
 
+	@Test
+	public void testRuleForSuperclass() throws Exception {
+		moveBlockers.add(new MyMoveBlocker());
+		MyMovable subMovable = new MyMovable() {
+		};
+		subMovable.superPower = true;
+		assertTrue(rulesApplier.moveValidationProcessing(subMovable,
+				moveBlockers));
+		assertTrue(rulesApplier.moveValidationProcessing(subMovable,
+				moveBlockers));
+		assertEquals(2, rulesApplied);
+	}
+
+	@Test
+	public void testMostSpecificRule() throws Exception {
+		rulesApplier = new MoveBlockerRulesApplierDefaultImpl() {
+
+			@SuppressWarnings("unused")
+			public void moveBlockerRule(GameMovable movable, MyMoveBlocker blocker) {
+				rulesApplied += 10;
+			}
+
+			@SuppressWarnings("unused")
+			public void moveBlockerRule(MyMovable movable, MoveBlocker blocker) {
+				rulesApplied++;
+			}
+		};
+		moveBlockers.add(new MyMoveBlocker());
+		assertTrue(rulesApplier.moveValidationProcessing(movable, moveBlockers));
+		assertEquals(1, rulesApplied);
+	}
+
+	@Test
+	public void testAmbiguousRulesFallBackToExactRule() throws Exception {
+		rulesApplier = new MoveBlockerRulesApplierDefaultImpl() {
+
+			@SuppressWarnings("unused")
+			public void moveBlockerRule(Swimmer movable, MoveBlocker blocker) {
+				rulesApplied++;
+			}
+
+			@SuppressWarnings("unused")
+			public void moveBlockerRule(Flyer movable, MoveBlocker blocker) {
+				rulesApplied++;
+			}
+		};
+		moveBlockers.add(new MyMoveBlocker());
+		assertFalse(rulesApplier.moveValidationProcessing(new Duck(),
+				moveBlockers));
+		assertEquals(0, rulesApplied);
+	}
+
+	@Test
+	public void testOverriddenRuleApplyIsUsed() throws Exception {
+		rulesApplier = new MoveBlockerRulesApplierDefaultImpl() {
+
+			@Override
+			protected void moveBlockerRuleApply(GameMovable movable,
+					MoveBlocker blocker) throws Exception {
+				rulesApplied++;
+			}
+		};
+		moveBlockers.add(new MyMoveBlocker());
+		assertTrue(rulesApplier.moveValidationProcessing(movable, moveBlockers));
+		assertEquals(1, rulesApplied);
+	}
+
+	interface Swimmer {
+	}
+
+	interface Flyer {
+	}
+
+	static class Duck extends MyMovable implements Swimmer, Flyer {
+	}
+
+	@Test
+	public void testWithNoRule() throws Exception {
+		moveBlockers.add(new MyMoveBlocker());
+		assertFalse(rulesApplier.moveValidationProcessing(new GameMovable() {
+
+			@Override
+			public Rectangle getBoundingBox() {
+				return null;
+			}
+
+			@Override
+			public void oneStepMoveAddedBehavior() {
+			}
+		}, moveBlockers));
+		assertEquals(0, rulesApplied);
+	}
+
 }
 
 class MyMovable extends GameMovable {
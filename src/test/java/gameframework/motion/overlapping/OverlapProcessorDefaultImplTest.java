@@ -2,12 +2,17 @@ package gameframework.motion.overlapping;
 
 import gameframework.game.GameData;
 import gameframework.motion.GameMovable;
+import gameframework.motion.SpeedVector;
 
+import java.awt.Dimension;
 import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.Vector;
 
@@ -15,15 +20,16 @@ import org.junit.Before;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class OverlapProcessorDefaultImplTest {
 
-	OverlapProcessorDefaultImpl overlapProcessor;
+	OverlapProcessor overlapProcessor;
 	Vector<Overlap> actualOverlaps;
 
 	@Before
 	public void createOverlapProcessor() {
-		overlapProcessor = new OverlapProcessorDefaultImpl();
+		overlapProcessor = createProcessor();
 		overlapProcessor.setOverlapRules(new OverlapRulesApplier() {
 
 			@Override
@@ -37,6 +43,35 @@ public class OverlapProcessorDefaultImplTest {
 		});
 	}
 
+	protected OverlapProcessor createProcessor() {
+		return new OverlapProcessorDefaultImpl();
+	}
+
+	/**
+	 * @return false if the processor finds the overlaps of the default one,
+	 *         but in another order
+	 */
+	protected boolean keepsOrderOfDefault() {
+		return true;
+	}
+
+	@Test
+	public void sameOverlapsAsDefault() throws Exception {
+		Random random = new Random(42);
+		List<Overlap> expected = new ArrayList<Overlap>();
+		OverlapProcessor defaultProcessor = createRecordingDefaultProcessor(expected);
+		for (int i = 0; i < 400; i++) {
+			Overlappable overlappable = createRandomOverlappable(random, 300);
+			overlapProcessor.addOverlappable(overlappable);
+			defaultProcessor.addOverlappable(overlappable);
+		}
+
+		defaultProcessor.processOverlapsAll();
+		overlapProcessor.processOverlapsAll();
+		assertFalse(expected.isEmpty());
+		assertSameOverlaps(expected, actualOverlaps);
+	}
+
 	@Test
 	public void twoOverlappingMovables() throws Exception {
 		int width1 = 10;
@@ -89,6 +124,23 @@ public class OverlapProcessorDefaultImplTest {
 		assertOverlaps();
 	}
 
+	@Test
+	public void removingSeveralOverlappables() throws Exception {
+		Overlappable overlappable1 = createOverlappableMovable(0, 0, 10, 20);
+		Overlappable overlappable2 = createOverlappableMovable(5, 0, 10, 20);
+		Overlappable overlappable3 = createOverlappable(5, 0, 10, 20);
+		Overlappable overlappable4 = createOverlappable(8, 0, 10, 20);
+		overlapProcessor.addOverlappable(overlappable1);
+		overlapProcessor.addOverlappable(overlappable2);
+		overlapProcessor.addOverlappable(overlappable3);
+		overlapProcessor.addOverlappable(overlappable4);
+
+		((BatchRemovalOverlapProcessor) overlapProcessor).removeOverlappables(
+				Arrays.asList(overlappable2, overlappable3));
+		overlapProcessor.processOverlapsAll();
+		assertOverlaps(new Overlap(overlappable1, overlappable4));
+	}
+
 	@Test
 	public void threeOverlappingMovables() throws Exception {
 		int width1 = 10;
@@ -199,6 +251,24 @@ public class OverlapProcessorDefaultImplTest {
 		assertOverlaps(new Overlap(overlappable1, overlappable2));
 	}
 
+	@Test
+	public void overlappingWithLargeNonMovable() throws Exception {
+		Overlappable movable = createOverlappableMovable(100, 100, 10, 20);
+		Overlappable wall = createOverlappable(-50, 0, 300, 120);
+		Overlappable farWall = createOverlappable(-50, 300, 300, 120);
+
+		overlapProcessor.addOverlappable(wall);
+		overlapProcessor.addOverlappable(farWall);
+		overlapProcessor.addOverlappable(movable);
+
+		overlapProcessor.processOverlapsAll();
+		assertOverlaps(new Overlap(movable, wall));
+
+		overlapProcessor.removeOverlappable(wall);
+		overlapProcessor.processOverlapsAll();
+		assertOverlaps();
+	}
+
 	@Test
 	public void twoIdenticalOverlappable() throws Exception {
 		int width1 = 10;
@@ -225,6 +295,69 @@ public class OverlapProcessorDefaultImplTest {
 		assertEquals(expectedOverlaps, actualOverlaps);
 	}
 
+	void assertSameOverlaps(List<Overlap> expected, List<Overlap> actual) {
+		assertEquals(expected.size(), actual.size());
+		if (!keepsOrderOfDefault()) {
+			assertEquals(getOverlaps(expected), getOverlaps(actual));
+			return;
+		}
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i).getOverlappable1(), actual.get(i)
+					.getOverlappable1());
+			assertEquals(expected.get(i).getOverlappable2(), actual.get(i)
+					.getOverlappable2());
+		}
+	}
+
+	/**
+	 * @return a default processor replacing the content of the list with the
+	 *         overlaps it finds
+	 */
+	OverlapProcessor createRecordingDefaultProcessor(
+			final List<Overlap> overlaps) {
+		OverlapProcessor processor = new OverlapProcessorDefaultImpl();
+		processor.setOverlapRules(new OverlapRulesApplier() {
+
+			@Override
+			public void applyOverlapRules(Vector<Overlap> found) {
+				overlaps.clear();
+				overlaps.addAll(found);
+			}
+
+			@Override
+			public void setGameData(GameData data) {
+			}
+		});
+		return processor;
+	}
+
+	/**
+	 * @return a sprite sized overlappable around the origin, a movable with a
+	 *         random speed one time out of three
+	 */
+	Overlappable createRandomOverlappable(Random random, int spread) {
+		int x = random.nextInt(spread) - spread / 2;
+		int y = random.nextInt(spread) - spread / 2;
+		if (random.nextInt(3) != 0) {
+			return createOverlappable(x, y, 16, 16);
+		}
+		GameMovable movable = new MovableOverlappable() {
+
+			@Override
+			public Rectangle getBoundingBox() {
+				return new Rectangle(getPosition(), new Dimension(16, 16));
+			}
+		};
+		movable.setPosition(new Point(x, y));
+		setRandomSpeed(random, movable);
+		return (Overlappable) movable;
+	}
+
+	void setRandomSpeed(Random random, GameMovable movable) {
+		movable.setSpeedVector(new SpeedVector(new Point(random.nextInt(3) - 1,
+				random.nextInt(3) - 1), random.nextInt(8)));
+	}
+
 	Set<Set<Overlappable>> getOverlaps(Collection<Overlap> overlaps) {
 		Set<Set<Overlappable>> result = new HashSet<Set<Overlappable>>();
 		for (Overlap overlap : overlaps) {
@@ -0,0 +1,23 @@
+package gameframework.motion.overlapping;
+
+import org.junit.Test;
+
+public class OverlapProcessorGridImplTest extends OverlapProcessorDefaultImplTest {
+
+	@Override
+	protected OverlapProcessor createProcessor() {
+		return new OverlapProcessorGridImpl(16);
+	}
+
+	@Test
+	public void overlapsOnNegativeCoordinates() throws Exception {
+		Overlappable overlappable1 = createOverlappableMovable(-40, -40, 10, 10);
+		Overlappable overlappable2 = createOverlappable(-35, -35, 10, 10);
+
+		overlapProcessor.addOverlappable(overlappable1);
+		overlapProcessor.addOverlappable(overlappable2);
+
+		overlapProcessor.processOverlapsAll();
+		assertOverlaps(new Overlap(overlappable1, overlappable2));
+	}
+}
@@ -0,0 +1,13 @@
+package gameframework.motion.overlapping;
+
+import java.util.concurrent.ForkJoinPool;
+
+public class OverlapProcessorParallelImplTest extends
+		OverlapProcessorDefaultImplTest {
+
+	@Override
+	protected OverlapProcessor createProcessor() {
+		// small batches so that the tests below run on several tasks
+		return new OverlapProcessorParallelImpl(16, new ForkJoinPool(4), 2);
+	}
+}
@@ -0,0 +1,98 @@
+package gameframework.motion.overlapping;
+
+import gameframework.game.GameData;
+import gameframework.motion.GameMovable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Vector;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class OverlapProcessorSweepAndPruneImplTest extends
+		OverlapProcessorDefaultImplTest {
+
+	@Override
+	protected OverlapProcessor createProcessor() {
+		return new OverlapProcessorSweepAndPruneImpl();
+	}
+
+	@Test
+	public void movableComesFirstWithNonMovable() throws Exception {
+		Overlappable nonMovable = createOverlappable(-5, 0, 10, 10);
+		Overlappable movable = createOverlappableMovable(0, 0, 10, 10);
+
+		overlapProcessor.addOverlappable(nonMovable);
+		overlapProcessor.addOverlappable(movable);
+
+		overlapProcessor.processOverlapsAll();
+		assertEquals(1, actualOverlaps.size());
+		assertEquals(movable, actualOverlaps.get(0).getOverlappable1());
+	}
+
+	@Test
+	public void rulesAreAppliedWithoutTheLock() throws Exception {
+		final Overlappable movable = createOverlappableMovable(0, 0, 10, 10);
+		final Overlappable nonMovable = createOverlappable(5, 0, 10, 10);
+		final List<Boolean> locked = new ArrayList<Boolean>();
+		overlapProcessor.setOverlapRules(new OverlapRulesApplier() {
+
+			@Override
+			public void applyOverlapRules(Vector<Overlap> overlaps) {
+				locked.add(Thread.holdsLock(overlapProcessor));
+				actualOverlaps = overlaps;
+				overlapProcessor.removeOverlappable(nonMovable);
+			}
+
+			@Override
+			public void setGameData(GameData data) {
+			}
+		});
+		overlapProcessor.addOverlappable(movable);
+		overlapProcessor.addOverlappable(nonMovable);
+
+		overlapProcessor.processOverlapsAll();
+		assertEquals(1, actualOverlaps.size());
+		overlapProcessor.processOverlapsAll();
+		assertEquals(0, actualOverlaps.size());
+		assertEquals(Arrays.asList(false, false), locked);
+	}
+
+	@Override
+	protected boolean keepsOrderOfDefault() {
+		return false;
+	}
+
+	@Test
+	public void sameOverlapsAsDefaultWhileMoving() throws Exception {
+		Random random = new Random(42);
+		List<Overlap> expected = new ArrayList<Overlap>();
+		OverlapProcessor defaultProcessor = createRecordingDefaultProcessor(expected);
+		List<GameMovable> movables = new ArrayList<GameMovable>();
+		for (int i = 0; i < 300; i++) {
+			Overlappable overlappable = createRandomOverlappable(random, 400);
+			if (overlappable instanceof GameMovable) {
+				movables.add((GameMovable) overlappable);
+			}
+			overlapProcessor.addOverlappable(overlappable);
+			defaultProcessor.addOverlappable(overlappable);
+		}
+
+		for (int tick = 0; tick < 10; tick++) {
+			for (GameMovable movable : movables) {
+				setRandomSpeed(random, movable);
+				movable.getPosition().translate(random.nextInt(9) - 4,
+						random.nextInt(9) - 4);
+			}
+			defaultProcessor.processOverlapsAll();
+			overlapProcessor.processOverlapsAll();
+			assertFalse(expected.isEmpty());
+			assertSameOverlaps(expected, actualOverlaps);
+		}
+	}
+}
@@ -1,11 +1,16 @@
 package gameframework.motion.overlapping;
 
+import java.lang.reflect.Method;
 import java.util.Arrays;
 import java.util.Vector;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import gameframework.game.GameConfiguration;
+import gameframework.game.GameData;
+import gameframework.metrics.GameMetricsListener.Counter;
+import gameframework.metrics.GameMetricsRecorder;
 import gameframework.motion.overlapping.mocks.OverlappableMock;
 import gameframework.motion.overlapping.mocks.OverlappableMovableMock;
 
@@ -70,6 +75,21 @@ public class OverlapRulesApplierDefaultImplTest {
 		assertEquals(0, rulesApplied);
 	}
 
+	@Test
+	public void onlyInvokedRulesAreCounted() {
+		GameData data = new GameData(new GameConfiguration());
+		GameMetricsRecorder recorder = new GameMetricsRecorder();
+		data.setMetricsListener(recorder);
+		ruleApplier.setGameData(data);
+		ruleApplier.applyOverlapRules(
+			new Vector<Overlap>(Arrays.asList(
+					new Overlap(overlappableMovable, overlappable),
+					new Overlap(overlappable, overlappable)
+				)));
+		assertEquals(2, recorder.getCount(Counter.OVERLAPS_FOUND));
+		assertEquals(1, recorder.getCount(Counter.RULE_DISPATCHES));
+	}
+
 	@Test
 	public void testApplyCrashingRule() {
 		ruleShouldCrash = true;
@@ -86,4 +106,47 @@ public class OverlapRulesApplierDefaultImplTest {
 		}
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void testApplyRuleInBothOrdersSeveralTimes() {
+		Vector<Overlap> overlaps = new Vector<Overlap>(Arrays.asList(
+				new Overlap(overlappable, overlappableMovable),
+				new Overlap(overlappableMovable, overlappable),
+				new Overlap(overlappable, overlappable)));
+		ruleApplier.applyOverlapRules(overlaps);
+		ruleApplier.applyOverlapRules(overlaps);
+		assertEquals(4, rulesApplied);
+	}
+
+	@Test
+	public void overriddenReflectiveInvokeIsUsed() {
+		ruleApplier = new OverlapRulesApplierDefaultImpl() {
+
+			@SuppressWarnings("unused")
+			public void overlapRule(OverlappableMock overlappable,
+					OverlappableMovableMock overlappableMovable) {
+				rulesApplied++;
+			}
+
+			@Override
+			protected void invoke(Method m, Overlappable e1, Overlappable e2) {
+				rulesApplied += 10;
+				super.invoke(m, e1, e2);
+			}
+		};
+		ruleApplier.applyOverlapRules(new Vector<Overlap>(Arrays.asList(
+				new Overlap(overlappableMovable, overlappable))));
+		assertEquals(11, rulesApplied);
+	}
+
+	@Test
+	public void rulesWithoutReversingParameters() {
+		ruleApplier.applySpecificOverlapRule(overlappableMovable,
+				overlappable, false);
+		assertEquals(0, rulesApplied);
+		ruleApplier.applySpecificOverlapRule(overlappable,
+				overlappableMovable, false);
+		ruleApplier.applySpecificOverlapRule(overlappableMovable,
+				overlappable, true);
+		assertEquals(2, rulesApplied);
+	}
+}